@@ -0,0 +1,525 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.benchmarks;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.command.SimpleCommandMap;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.SimplePluginManager;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * A lightweight, headless stand-in for the Bukkit Server, along with the Plugins, Players, Worlds, Inventories and
+ * ItemMeta that the library needs. Every stub is a dynamic proxy that only implements the methods the library calls,
+ * returning a default value for everything else.
+ * <br>
+ * Synchronous tasks given to the scheduler are only run when the benchmark advances the server with tick(). The
+ * thread that last called get() is treated as the main server thread.
+ */
+public class StubServer {
+    private static StubServer instance;
+
+    private final Server server;
+    private final SimpleCommandMap commandMap;
+    private final SimplePluginManager pluginManager;
+    private final Plugin plugin;
+    private final Logger logger = Logger.getLogger("StilesLibBenchmarks");
+    private final Map<String, World> worlds = new HashMap<>();
+    private final List<Player> players = new ArrayList<>();
+    private final ItemFactory itemFactory = proxy(ItemFactory.class, new ItemFactoryHandler());
+    private final BukkitScheduler scheduler = proxy(BukkitScheduler.class, new SchedulerHandler());
+    private final List<ScheduledTask> tasks = new ArrayList<>();
+    private volatile long currentTick = 0;
+    private volatile Thread primaryThread;
+
+    private StubServer() {
+        server = proxy(Server.class, new ServerHandler());
+        Bukkit.setServer(server);
+        commandMap = new SimpleCommandMap(server);
+        pluginManager = new SimplePluginManager(server, commandMap);
+        plugin = proxy(Plugin.class, new PluginHandler());
+    }
+
+    /**
+     * Get the stub server, installing it as the Bukkit Server the first time this is called.
+     *
+     * @return the installed stub server
+     */
+    public static synchronized StubServer get() {
+        if (instance == null) {
+            instance = new StubServer();
+        }
+        instance.primaryThread = Thread.currentThread();
+
+        return instance;
+    }
+
+    /**
+     * Get the stub Plugin, which is enabled and backed by this server's plugin manager and command map.
+     *
+     * @return the stub Plugin
+     */
+    public Plugin getPlugin() {
+        return plugin;
+    }
+
+    /**
+     * Get the command map that commands registered through the stub Plugin end up in.
+     *
+     * @return the stub server's command map
+     */
+    public SimpleCommandMap getCommandMap() {
+        return commandMap;
+    }
+
+    /**
+     * Get a stub World with the specified name, creating it if it does not exist yet.
+     *
+     * @param name the name of the World
+     * @return the stub World
+     */
+    public synchronized World getWorld(final String name) {
+        World world = worlds.get(name);
+        if (world == null) {
+            world = proxy(World.class, new StubHandler() {
+                @Override
+                protected Object handle(Object proxy, String method, Object[] args) {
+                    return method.equals("getName") ? name : UNHANDLED;
+                }
+            });
+            worlds.put(name, world);
+        }
+
+        return world;
+    }
+
+    /**
+     * Create a new online stub Player, who has every permission and can open Inventories.
+     *
+     * @param name the name of the Player
+     * @return the new stub Player
+     */
+    public synchronized Player createPlayer(String name) {
+        Player player = proxy(Player.class, new PlayerHandler(name));
+        players.add(player);
+        return player;
+    }
+
+    /**
+     * Advance the server by one tick, running every scheduled task that has become due.
+     */
+    public void tick() {
+        currentTick++;
+
+        List<ScheduledTask> due = new ArrayList<>();
+        synchronized (tasks) {
+            for (Iterator<ScheduledTask> iterator = tasks.iterator(); iterator.hasNext(); ) {
+                ScheduledTask task = iterator.next();
+                if (task.cancelled || task.tick <= currentTick) {
+                    iterator.remove();
+                    if (!task.cancelled) {
+                        due.add(task);
+                    }
+                }
+            }
+        }
+
+        for (ScheduledTask task : due) {
+            task.runnable.run();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StubServer.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    /**
+     * Base InvocationHandler for all stubs, providing identity-based Object methods and default return values.
+     */
+    private abstract static class StubHandler implements InvocationHandler {
+        protected static final Object UNHANDLED = new Object();
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = handle(proxy, method.getName(), args);
+            if (result != UNHANDLED) {
+                return result;
+            }
+
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+            }
+
+            return defaultValue(method.getReturnType());
+        }
+
+        protected abstract Object handle(Object proxy, String method, Object[] args) throws Throwable;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        } else if (type == boolean.class) {
+            return false;
+        } else if (type == char.class) {
+            return (char) 0;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == float.class) {
+            return 0F;
+        } else if (type == double.class) {
+            return 0D;
+        }
+        return 0;
+    }
+
+    private class ServerHandler extends StubHandler {
+        @Override
+        protected Object handle(Object proxy, String method, Object[] args) {
+            switch (method) {
+                case "getName":
+                    return "StubServer";
+                case "getVersion":
+                case "getBukkitVersion":
+                    return "benchmark";
+                case "getLogger":
+                    return logger;
+                case "getPluginManager":
+                    return pluginManager;
+                case "getItemFactory":
+                    return itemFactory;
+                case "getScheduler":
+                    return scheduler;
+                case "getWorld":
+                    return args[0] instanceof String ? getWorld((String) args[0]) : null;
+                case "getOnlinePlayers":
+                    synchronized (StubServer.this) {
+                        return new ArrayList<>(players);
+                    }
+                case "isPrimaryThread":
+                    return Thread.currentThread() == primaryThread;
+                case "createInventory":
+                    int size = args[1] instanceof Integer ? (Integer) args[1] : 27;
+                    String title = args.length > 2 ? (String) args[2] : "Chest";
+                    return proxy(Inventory.class, new InventoryHandler((InventoryHolder) args[0], size, title));
+            }
+            return UNHANDLED;
+        }
+    }
+
+    private class SchedulerHandler extends StubHandler {
+        @Override
+        protected Object handle(Object proxy, String method, Object[] args) {
+            switch (method) {
+                case "runTask":
+                    return schedule((Runnable) args[1], 1);
+                case "runTaskLater":
+                    return schedule((Runnable) args[1], Math.max(1, (Long) args[2]));
+                case "runTaskAsynchronously":
+                    ((Runnable) args[1]).run();
+                    return schedule(null, 0);
+            }
+            return UNHANDLED;
+        }
+
+        private BukkitTask schedule(Runnable runnable, long delay) {
+            final ScheduledTask task = new ScheduledTask(runnable, currentTick + delay);
+            if (runnable != null) {
+                synchronized (tasks) {
+                    tasks.add(task);
+                }
+            }
+
+            return proxy(BukkitTask.class, new StubHandler() {
+                @Override
+                protected Object handle(Object proxy, String method, Object[] args) {
+                    switch (method) {
+                        case "cancel":
+                            task.cancelled = true;
+                            return null;
+                        case "isSync":
+                            return true;
+                    }
+                    return UNHANDLED;
+                }
+            });
+        }
+    }
+
+    /**
+     * A synchronous task waiting for the tick it is due to run at.
+     */
+    private static class ScheduledTask {
+        private final Runnable runnable;
+        private final long tick;
+        private volatile boolean cancelled = false;
+
+        ScheduledTask(Runnable runnable, long tick) {
+            this.runnable = runnable;
+            this.tick = tick;
+        }
+    }
+
+    private class PluginHandler extends StubHandler {
+        @Override
+        protected Object handle(Object proxy, String method, Object[] args) {
+            switch (method) {
+                case "getName":
+                    return "StilesLibBenchmarks";
+                case "getServer":
+                    return server;
+                case "getLogger":
+                    return logger;
+                case "isEnabled":
+                    return true;
+                case "onCommand":
+                    return true;
+            }
+            return UNHANDLED;
+        }
+    }
+
+    private static class PlayerHandler extends StubHandler {
+        private final String name;
+        private final UUID uuid = UUID.randomUUID();
+        private InventoryView openInventory;
+
+        PlayerHandler(String name) {
+            this.name = name;
+        }
+
+        @Override
+        protected Object handle(Object proxy, String method, Object[] args) {
+            switch (method) {
+                case "getName":
+                case "getDisplayName":
+                    return name;
+                case "getUniqueId":
+                    return uuid;
+                case "isOnline":
+                case "isValid":
+                case "hasPermission":
+                    return true;
+                case "getOpenInventory":
+                    return openInventory;
+                case "openInventory":
+                    if (args[0] instanceof Inventory) {
+                        openInventory = new StubInventoryView((Inventory) args[0], (HumanEntity) proxy);
+                    }
+                    return openInventory;
+                case "closeInventory":
+                    openInventory = null;
+                    return null;
+            }
+            return UNHANDLED;
+        }
+    }
+
+    private static class InventoryHandler extends StubHandler {
+        private final InventoryHolder holder;
+        private final ItemStack[] contents;
+        private final String title;
+
+        InventoryHandler(InventoryHolder holder, int size, String title) {
+            this.holder = holder;
+            this.contents = new ItemStack[size];
+            this.title = title;
+        }
+
+        @Override
+        protected Object handle(Object proxy, String method, Object[] args) {
+            switch (method) {
+                case "getSize":
+                    return contents.length;
+                case "getMaxStackSize":
+                    return 64;
+                case "getName":
+                case "getTitle":
+                    return title;
+                case "getType":
+                    return InventoryType.CHEST;
+                case "getHolder":
+                    return holder;
+                case "getViewers":
+                    return Collections.<HumanEntity>emptyList();
+                case "getItem":
+                    return contents[(Integer) args[0]];
+                case "setItem":
+                    contents[(Integer) args[0]] = (ItemStack) args[1];
+                    return null;
+                case "getContents":
+                    return contents.clone();
+                case "clear":
+                    if (args == null || args.length == 0) {
+                        Arrays.fill(contents, null);
+                    } else {
+                        contents[(Integer) args[0]] = null;
+                    }
+                    return null;
+            }
+            return UNHANDLED;
+        }
+    }
+
+    private class ItemFactoryHandler extends StubHandler {
+        @Override
+        protected Object handle(Object proxy, String method, Object[] args) {
+            switch (method) {
+                case "getItemMeta":
+                    return args[0] == Material.AIR ? null : proxy(ItemMeta.class, new ItemMetaHandler(null, null));
+                case "isApplicable":
+                    return args[0] != null;
+                case "asMetaFor":
+                    return args[0];
+                case "equals":
+                    return args.length == 2 ? metaState(args[0]).equals(metaState(args[1])) : UNHANDLED;
+            }
+            return UNHANDLED;
+        }
+
+        private ItemMetaHandler metaState(Object meta) {
+            return meta == null ? new ItemMetaHandler(null, null) : (ItemMetaHandler) Proxy.getInvocationHandler(meta);
+        }
+    }
+
+    private static class ItemMetaHandler extends StubHandler {
+        private String displayName;
+        private List<String> lore;
+
+        ItemMetaHandler(String displayName, List<String> lore) {
+            this.displayName = displayName;
+            this.lore = lore;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Object handle(Object proxy, String method, Object[] args) {
+            switch (method) {
+                case "hasDisplayName":
+                    return displayName != null;
+                case "getDisplayName":
+                    return displayName;
+                case "setDisplayName":
+                    displayName = (String) args[0];
+                    return null;
+                case "hasLore":
+                    return lore != null && !lore.isEmpty();
+                case "getLore":
+                    return lore == null ? null : new ArrayList<>(lore);
+                case "setLore":
+                    lore = args[0] == null ? null : new ArrayList<>((List<String>) args[0]);
+                    return null;
+                case "clone":
+                    return proxy(ItemMeta.class, new ItemMetaHandler(displayName, lore));
+                case "equals":
+                    return args[0] instanceof ItemMeta && equals(Proxy.getInvocationHandler(args[0]));
+                case "hashCode":
+                    return hashCode();
+            }
+            return UNHANDLED;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ItemMetaHandler)) {
+                return false;
+            }
+
+            ItemMetaHandler other = (ItemMetaHandler) o;
+            boolean hasLore = lore != null && !lore.isEmpty();
+            boolean otherHasLore = other.lore != null && !other.lore.isEmpty();
+            return (displayName == null ? other.displayName == null : displayName.equals(other.displayName))
+                    && hasLore == otherHasLore && (!hasLore || lore.equals(other.lore));
+        }
+
+        @Override
+        public int hashCode() {
+            return (displayName == null ? 0 : displayName.hashCode()) * 31 + (lore == null ? 0 : lore.hashCode());
+        }
+    }
+
+    /**
+     * A minimal InventoryView pairing an open Inventory with the Player viewing it.
+     */
+    private static class StubInventoryView extends InventoryView {
+        private final Inventory top;
+        private final HumanEntity player;
+
+        StubInventoryView(Inventory top, HumanEntity player) {
+            this.top = top;
+            this.player = player;
+        }
+
+        @Override
+        public Inventory getTopInventory() {
+            return top;
+        }
+
+        @Override
+        public Inventory getBottomInventory() {
+            return null;
+        }
+
+        @Override
+        public HumanEntity getPlayer() {
+            return player;
+        }
+
+        @Override
+        public InventoryType getType() {
+            return InventoryType.CHEST;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.calendar;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for parsing and formatting time differences with CalendarUtils.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalendarUtilsBenchmark {
+    private Calendar now;
+    private Calendar shortSpan;
+    private Calendar longSpan;
+
+    @Setup
+    public void setup() {
+        now = new GregorianCalendar();
+        shortSpan = new GregorianCalendar();
+        shortSpan.setTimeInMillis(now.getTimeInMillis() + (1000 * 60 * 5) + (1000 * 30));
+        longSpan = (Calendar) now.clone();
+        longSpan.add(Calendar.YEAR, 10);
+        longSpan.add(Calendar.MONTH, 11);
+        longSpan.add(Calendar.DAY_OF_YEAR, 27);
+        longSpan.add(Calendar.SECOND, 86399);
+    }
+
+    @Benchmark
+    public Calendar parseTimeDifference(Input input) {
+        return CalendarUtils.parseTimeDifference(input.value);
+    }
+
+    @Benchmark
+    public String buildShortTimeDifference() {
+        return CalendarUtils.buildTimeDifference(now, shortSpan);
+    }
+
+    @Benchmark
+    public String buildLongTimeDifference() {
+        return CalendarUtils.buildTimeDifference(now, longSpan);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Input {
+        @Param({ "30m", "1h30m22s", "1y2mo3w4d5h6m7s" })
+        public String value;
+    }
+}
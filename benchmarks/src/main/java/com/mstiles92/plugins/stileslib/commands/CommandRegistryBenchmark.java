@@ -0,0 +1,128 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.commands;
+
+import com.mstiles92.plugins.stileslib.benchmarks.StubServer;
+import com.mstiles92.plugins.stileslib.commands.annotations.Command;
+import com.mstiles92.plugins.stileslib.commands.annotations.TabCompleter;
+import org.bukkit.command.CommandSender;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for dispatching commands through CommandRegistry and tab completing them through CustomCompleter, with
+ * a varying number of registered subcommands under the same base command.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandRegistryBenchmark {
+    @Param({ "10", "1000" })
+    public int subcommands;
+
+    private CommandRegistry registry;
+    private CustomCompleter completer;
+    private CommandSender sender;
+    private org.bukkit.command.Command command;
+
+    private final String[] subcommandArgs = new String[] { "Target", "first", "second" };
+    private final String[] baseCommandArgs = new String[] { "first", "second" };
+    private final String[] completionArgs = new String[] { "target", "" };
+
+    @Setup
+    public void setup() throws Exception {
+        StubServer server = StubServer.get();
+        Handler handler = new Handler();
+
+        registry = new CommandRegistry(server.getPlugin());
+        Method register = CommandRegistry.class.getDeclaredMethod("registerCommand", Command.class, String.class, RegisteredCommand.class);
+        register.setAccessible(true);
+        Method filler = Handler.class.getMethod("filler", Arguments.class);
+        Command fillerCommand = filler.getAnnotation(Command.class);
+        for (int i = 0; i < subcommands; i++) {
+            register.invoke(registry, fillerCommand, "bench.filler" + i, new RegisteredCommand(fillerCommand, filler, handler));
+        }
+        registry.registerCommands(handler);
+
+        completer = new CustomCompleter();
+        Method fillerCompleter = Handler.class.getMethod("completeFiller", Arguments.class);
+        for (int i = 0; i < subcommands; i++) {
+            completer.addCompleter("bench.filler" + i, fillerCompleter, handler);
+        }
+        completer.addCompleter("bench.target", Handler.class.getMethod("completeTarget", Arguments.class), handler);
+
+        sender = server.createPlayer("BenchSender");
+        command = server.getCommandMap().getCommand("bench");
+    }
+
+    @Benchmark
+    public boolean handleSubcommand() {
+        return registry.handleCommand(sender, command, "bench", subcommandArgs);
+    }
+
+    @Benchmark
+    public boolean handleBaseCommand() {
+        return registry.handleCommand(sender, command, "bench", baseCommandArgs);
+    }
+
+    @Benchmark
+    public List<String> tabComplete() {
+        return completer.onTabComplete(sender, command, "bench", completionArgs);
+    }
+
+    /**
+     * The CommandHandler registered for every benchmark. Filler subcommands are registered under generated labels in
+     * setup, as annotations can not be generated at runtime.
+     */
+    public static class Handler implements CommandHandler {
+        private final List<String> completions = Arrays.asList("alpha", "beta", "gamma");
+        public int calls;
+
+        @Command(name = "bench")
+        public void base(Arguments args) {
+            calls += args.getArgs().length;
+        }
+
+        @Command(name = "bench.target", aliases = { "bench.t" })
+        public void target(Arguments args) {
+            calls += args.getArgs().length;
+        }
+
+        @Command(name = "bench.filler")
+        public void filler(Arguments args) {
+            calls++;
+        }
+
+        @TabCompleter(name = "bench.target")
+        public List<String> completeTarget(Arguments args) {
+            return completions;
+        }
+
+        public List<String> completeFiller(Arguments args) {
+            return completions;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import org.bukkit.configuration.MemoryConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for decoding very large List and Map fields of nested ConfigObjects, isolating the cost of walking the
+ * stored sections from any file I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigCollectionBenchmark {
+    @Param({ "100000" })
+    public int size;
+
+    private MemoryConfiguration listConfig;
+    private MemoryConfiguration mapConfig;
+
+    @Setup
+    public void setup() throws Exception {
+        ListModel listModel = new ListModel();
+        MapModel mapModel = new MapModel();
+        for (int i = 0; i < size; i++) {
+            Element element = new Element();
+            element.name = "element" + i;
+            element.amount = i;
+            listModel.elements.add(element);
+            mapModel.elements.put(element.name, element);
+        }
+
+        listConfig = new MemoryConfiguration();
+        listModel.onSave(listConfig);
+        mapConfig = new MemoryConfiguration();
+        mapModel.onSave(mapConfig);
+    }
+
+    @Benchmark
+    public ListModel loadList() throws Exception {
+        ListModel loaded = new ListModel();
+        loaded.onLoad(listConfig);
+        return loaded;
+    }
+
+    @Benchmark
+    public MapModel loadMap() throws Exception {
+        MapModel loaded = new MapModel();
+        loaded.onLoad(mapConfig);
+        return loaded;
+    }
+
+    /**
+     * A model holding a single large list.
+     */
+    public static class ListModel extends ConfigModel {
+        public List<Element> elements = new ArrayList<>();
+    }
+
+    /**
+     * A model holding a single large map.
+     */
+    public static class MapModel extends ConfigModel {
+        public Map<String, Element> elements = new HashMap<>();
+    }
+
+    /**
+     * A small nested object stored in the large collections.
+     */
+    public static class Element extends ConfigObject {
+        public String name;
+        public int amount;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import org.bukkit.configuration.MemoryConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for loading and saving a model made up of a large number of primitive settings, isolating the cost of
+ * reading and writing the fields themselves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigFieldBenchmark {
+    private SettingsModel model;
+    private MemoryConfiguration saved;
+
+    @Setup
+    public void setup() throws Exception {
+        model = new SettingsModel();
+        saved = new MemoryConfiguration();
+        model.onSave(saved);
+    }
+
+    @Benchmark
+    public MemoryConfiguration onSave() throws Exception {
+        MemoryConfiguration config = new MemoryConfiguration();
+        model.onSave(config);
+        return config;
+    }
+
+    @Benchmark
+    public SettingsModel onLoad() throws Exception {
+        SettingsModel loaded = new SettingsModel();
+        loaded.onLoad(saved);
+        return loaded;
+    }
+
+    /**
+     * A model holding one hundred primitive settings of mixed types.
+     */
+    public static class SettingsModel extends ConfigModel {
+        public int setting0 = 0;
+        public long setting1 = 1L;
+        public double setting2 = 2.5;
+        public float setting3 = 3.25F;
+        public boolean setting4 = false;
+        public int setting5 = 5;
+        public long setting6 = 6L;
+        public double setting7 = 7.5;
+        public float setting8 = 8.25F;
+        public boolean setting9 = true;
+        public int setting10 = 10;
+        public long setting11 = 11L;
+        public double setting12 = 12.5;
+        public float setting13 = 13.25F;
+        public boolean setting14 = false;
+        public int setting15 = 15;
+        public long setting16 = 16L;
+        public double setting17 = 17.5;
+        public float setting18 = 18.25F;
+        public boolean setting19 = true;
+        public int setting20 = 20;
+        public long setting21 = 21L;
+        public double setting22 = 22.5;
+        public float setting23 = 23.25F;
+        public boolean setting24 = false;
+        public int setting25 = 25;
+        public long setting26 = 26L;
+        public double setting27 = 27.5;
+        public float setting28 = 28.25F;
+        public boolean setting29 = true;
+        public int setting30 = 30;
+        public long setting31 = 31L;
+        public double setting32 = 32.5;
+        public float setting33 = 33.25F;
+        public boolean setting34 = false;
+        public int setting35 = 35;
+        public long setting36 = 36L;
+        public double setting37 = 37.5;
+        public float setting38 = 38.25F;
+        public boolean setting39 = true;
+        public int setting40 = 40;
+        public long setting41 = 41L;
+        public double setting42 = 42.5;
+        public float setting43 = 43.25F;
+        public boolean setting44 = false;
+        public int setting45 = 45;
+        public long setting46 = 46L;
+        public double setting47 = 47.5;
+        public float setting48 = 48.25F;
+        public boolean setting49 = true;
+        public int setting50 = 50;
+        public long setting51 = 51L;
+        public double setting52 = 52.5;
+        public float setting53 = 53.25F;
+        public boolean setting54 = false;
+        public int setting55 = 55;
+        public long setting56 = 56L;
+        public double setting57 = 57.5;
+        public float setting58 = 58.25F;
+        public boolean setting59 = true;
+        public int setting60 = 60;
+        public long setting61 = 61L;
+        public double setting62 = 62.5;
+        public float setting63 = 63.25F;
+        public boolean setting64 = false;
+        public int setting65 = 65;
+        public long setting66 = 66L;
+        public double setting67 = 67.5;
+        public float setting68 = 68.25F;
+        public boolean setting69 = true;
+        public int setting70 = 70;
+        public long setting71 = 71L;
+        public double setting72 = 72.5;
+        public float setting73 = 73.25F;
+        public boolean setting74 = false;
+        public int setting75 = 75;
+        public long setting76 = 76L;
+        public double setting77 = 77.5;
+        public float setting78 = 78.25F;
+        public boolean setting79 = true;
+        public int setting80 = 80;
+        public long setting81 = 81L;
+        public double setting82 = 82.5;
+        public float setting83 = 83.25F;
+        public boolean setting84 = false;
+        public int setting85 = 85;
+        public long setting86 = 86L;
+        public double setting87 = 87.5;
+        public float setting88 = 88.25F;
+        public boolean setting89 = true;
+        public int setting90 = 90;
+        public long setting91 = 91L;
+        public double setting92 = 92.5;
+        public float setting93 = 93.25F;
+        public boolean setting94 = false;
+        public int setting95 = 95;
+        public long setting96 = 96L;
+        public double setting97 = 97.5;
+        public float setting98 = 98.25F;
+        public boolean setting99 = true;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import com.mstiles92.plugins.stileslib.benchmarks.StubServer;
+import org.bukkit.Location;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.util.Vector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for serializing a representative ConfigObject graph to and from a YamlConfiguration through onSave and
+ * onLoad, without any file I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigObjectBenchmark {
+    @Param({ "10", "1000" })
+    public int entries;
+
+    private BenchmarkModel model;
+    private YamlConfiguration saved;
+
+    @Setup
+    public void setup() throws Exception {
+        StubServer server = StubServer.get();
+
+        model = new BenchmarkModel();
+        model.spawn = new Location(server.getWorld("world"), 128.5, 64, -32.5, 90F, 10F);
+        for (int i = 0; i < entries; i++) {
+            Entry entry = new Entry();
+            entry.name = "entry" + i;
+            entry.amount = i;
+            entry.price = i * 1.5;
+            entry.home = new Location(server.getWorld("world"), i, 70, -i);
+            model.entries.add(entry);
+            model.counts.put("key" + i, i);
+        }
+
+        saved = new YamlConfiguration();
+        model.onSave(saved);
+    }
+
+    @Benchmark
+    public YamlConfiguration onSave() throws Exception {
+        YamlConfiguration yaml = new YamlConfiguration();
+        model.onSave(yaml);
+        return yaml;
+    }
+
+    @Benchmark
+    public BenchmarkModel onLoad() throws Exception {
+        BenchmarkModel loaded = new BenchmarkModel();
+        loaded.onLoad(saved);
+        return loaded;
+    }
+
+    /**
+     * Possible states stored in the benchmark model, to cover enum serialization.
+     */
+    public enum Mode {
+        ENABLED, DISABLED
+    }
+
+    /**
+     * A model covering every kind of field that ConfigObject handles.
+     */
+    public static class BenchmarkModel extends ConfigModel {
+        public int version = 3;
+        public long seed = 123456789L;
+        public double multiplier = 1.25;
+        public boolean enabled = true;
+        public String motd = "Welcome to the server";
+        public Mode mode = Mode.ENABLED;
+        public Location spawn;
+        public Vector velocity = new Vector(0.5, 1, -0.5);
+        public Entry defaults = new Entry();
+        public Map<String, Integer> counts = new HashMap<>();
+        public List<Entry> entries = new ArrayList<>();
+    }
+
+    /**
+     * A nested object stored in lists within the benchmark model.
+     */
+    public static class Entry extends ConfigObject {
+        public String name = "default";
+        public int amount = 1;
+        public double price = 0;
+        public Location home;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import com.mstiles92.plugins.stileslib.benchmarks.StubServer;
+import com.mstiles92.plugins.stileslib.config.ConfigObjectBenchmark.BenchmarkModel;
+import com.mstiles92.plugins.stileslib.config.ConfigObjectBenchmark.Entry;
+import org.bukkit.Location;
+import org.bukkit.configuration.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for loading a representative ConfigModel from disk in each storage format, reading the file alone,
+ * reading it and applying it to a new model, and reading it and applying it to a new model in lazy mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigStorageBenchmark {
+    @Param({ "10", "1000" })
+    public int entries;
+
+    @Param({ "YAML", "BINARY" })
+    public String format;
+
+    private ConfigStorage storage;
+    private File file;
+
+    @Setup
+    public void setup() throws Exception {
+        StubServer server = StubServer.get();
+        storage = format.equals("YAML") ? ConfigStorage.YAML : ConfigStorage.BINARY;
+
+        BenchmarkModel model = new BenchmarkModel();
+        model.spawn = new Location(server.getWorld("world"), 128.5, 64, -32.5, 90F, 10F);
+        for (int i = 0; i < entries; i++) {
+            Entry entry = new Entry();
+            entry.name = "entry" + i;
+            entry.amount = i;
+            entry.price = i * 1.5;
+            entry.home = new Location(server.getWorld("world"), i, 70, -i);
+            model.entries.add(entry);
+            model.counts.put("key" + i, i);
+        }
+
+        file = File.createTempFile("config", "." + format.toLowerCase());
+        file.delete();
+        model.CONFIG_STORAGE = storage;
+        model.save(file);
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public Configuration read() throws Exception {
+        return storage.read(file);
+    }
+
+    @Benchmark
+    public BenchmarkModel load() throws Exception {
+        BenchmarkModel loaded = new BenchmarkModel();
+        loaded.onLoad(storage.read(file));
+        return loaded;
+    }
+
+    @Benchmark
+    public BenchmarkModel loadLazy() throws Exception {
+        BenchmarkModel loaded = new BenchmarkModel();
+        loaded.setLazy(true);
+        loaded.onLoad(storage.read(file));
+        return loaded;
+    }
+}
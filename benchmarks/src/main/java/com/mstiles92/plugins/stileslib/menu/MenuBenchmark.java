@@ -0,0 +1,283 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.menu;
+
+import com.mstiles92.plugins.stileslib.benchmarks.StubServer;
+import com.mstiles92.plugins.stileslib.menu.events.MenuClickEvent;
+import com.mstiles92.plugins.stileslib.menu.items.AsyncMenuItem;
+import com.mstiles92.plugins.stileslib.menu.items.MenuItem;
+import com.mstiles92.plugins.stileslib.menu.menus.ListMenu;
+import com.mstiles92.plugins.stileslib.menu.menus.ListMenuSource;
+import com.mstiles92.plugins.stileslib.menu.menus.Menu;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for rendering Menus into Inventories, both when a Menu is opened and when it is refreshed after a click.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MenuBenchmark {
+    private StubServer server;
+    private Player player;
+    private Player cachedPlayer;
+    private Menu menu;
+    private Menu cachedMenu;
+    private InventoryClickEvent refreshClick;
+    private InventoryClickEvent cachedRefreshClick;
+    private Player floodPlayer;
+    private Menu floodMenu;
+    private InventoryClickEvent floodClick;
+
+    @Setup
+    public void setup() {
+        server = StubServer.get();
+        player = server.createPlayer("BenchViewer");
+
+        menu = new Menu(server.getPlugin(), "Benchmark", 6);
+        for (int i = 0; i < 54; i++) {
+            menu.setItem(i, new BenchmarkItem(i));
+        }
+
+        menu.open(player);
+        refreshClick = new InventoryClickEvent(player.getOpenInventory(), InventoryType.SlotType.CONTAINER, 0, ClickType.LEFT, InventoryAction.PICKUP_ALL);
+
+        cachedPlayer = server.createPlayer("CachedBenchViewer");
+        cachedMenu = new Menu(server.getPlugin(), "Cached Benchmark", 6);
+        for (int i = 0; i < 54; i++) {
+            MenuItem item = new BenchmarkItem(i);
+            item.setIconCache(MenuItem.IconCache.STATIC);
+            cachedMenu.setItem(i, item);
+        }
+
+        cachedMenu.open(cachedPlayer);
+        cachedRefreshClick = new InventoryClickEvent(cachedPlayer.getOpenInventory(), InventoryType.SlotType.CONTAINER, 0, ClickType.LEFT, InventoryAction.PICKUP_ALL);
+
+        floodPlayer = server.createPlayer("FloodBenchViewer");
+        floodMenu = new Menu(server.getPlugin(), "Flood Benchmark", 6);
+        for (int i = 0; i < 54; i++) {
+            MenuItem item = new BenchmarkItem(i);
+            item.setClickLimit(10, 5);
+            floodMenu.setItem(i, item);
+        }
+
+        floodMenu.open(floodPlayer);
+        floodClick = new InventoryClickEvent(floodPlayer.getOpenInventory(), InventoryType.SlotType.CONTAINER, 0, ClickType.LEFT, InventoryAction.PICKUP_ALL);
+    }
+
+    @Benchmark
+    public Player openMenu() {
+        menu.open(player);
+        return player;
+    }
+
+    @Benchmark
+    public Player refreshMenu() {
+        menu.handleClick(refreshClick);
+        server.tick();
+        return player;
+    }
+
+    @Benchmark
+    public Player refreshMenuTenTimesInOneTick() {
+        for (int i = 0; i < 10; i++) {
+            menu.handleClick(refreshClick);
+        }
+        server.tick();
+        return player;
+    }
+
+    @Benchmark
+    public Player floodClicksInOneTick() {
+        for (int i = 0; i < 10; i++) {
+            floodMenu.handleClick(floodClick);
+        }
+        server.tick();
+        return floodPlayer;
+    }
+
+    @Benchmark
+    public Player refreshCachedMenu() {
+        cachedMenu.handleClick(cachedRefreshClick);
+        server.tick();
+        return cachedPlayer;
+    }
+
+    @Benchmark
+    public Player openListMenu(ListState state) {
+        state.listMenu.open(player);
+        return player;
+    }
+
+    @Benchmark
+    public ListMenu createAndOpenListMenu(ListState state) {
+        ListMenu listMenu = new ListMenu(StubServer.get().getPlugin(), "List Benchmark", state.createItems());
+        listMenu.open(player);
+        return listMenu;
+    }
+
+    @Benchmark
+    public ListMenu createAndOpenSourceListMenu(final ListState state) {
+        ListMenu listMenu = new ListMenu(StubServer.get().getPlugin(), "List Benchmark", new ListMenuSource() {
+            @Override
+            public int size() {
+                return state.listSize;
+            }
+
+            @Override
+            public List<? extends MenuItem> getItems(int offset, int count) {
+                List<MenuItem> items = new ArrayList<>(count);
+                for (int i = offset; i < Math.min(offset + count, state.listSize); i++) {
+                    items.add(new BenchmarkItem(i));
+                }
+                return items;
+            }
+        });
+        listMenu.open(player);
+        return listMenu;
+    }
+
+    @Benchmark
+    public Player openSlowMenu(SlowState state) {
+        state.slowMenu.open(player);
+        return player;
+    }
+
+    @Benchmark
+    public Player openAsyncSlowMenu(SlowState state) {
+        for (AsyncMenuItem item : state.asyncItems) {
+            item.invalidate(player);
+        }
+        state.asyncMenu.open(player);
+        return player;
+    }
+
+    @State(Scope.Benchmark)
+    public static class SlowState {
+        private Menu slowMenu;
+        private Menu asyncMenu;
+        private List<AsyncMenuItem> asyncItems = new ArrayList<>();
+
+        @Setup
+        public void setup() {
+            StubServer server = StubServer.get();
+            slowMenu = new Menu(server.getPlugin(), "Slow Benchmark", 1);
+            asyncMenu = new Menu(server.getPlugin(), "Async Benchmark", 1);
+            for (int i = 0; i < 9; i++) {
+                slowMenu.setItem(i, new SlowItem(i));
+                AsyncMenuItem item = new AsyncSlowItem(server, i);
+                asyncItems.add(item);
+                asyncMenu.setItem(i, item);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ListState {
+        @Param({ "100", "10000" })
+        public int listSize;
+
+        private ListMenu listMenu;
+
+        @Setup
+        public void setup() {
+            listMenu = new ListMenu(StubServer.get().getPlugin(), "List Benchmark", createItems());
+        }
+
+        private List<MenuItem> createItems() {
+            List<MenuItem> items = new ArrayList<>(listSize);
+            for (int i = 0; i < listSize; i++) {
+                items.add(new BenchmarkItem(i));
+            }
+            return items;
+        }
+    }
+
+    /**
+     * Simulate the lookup behind an expensive display icon, such as a database query.
+     */
+    private static void slowLookup() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A MenuItem whose display icon takes a millisecond to create on the main thread.
+     */
+    private static class SlowItem extends BenchmarkItem {
+        SlowItem(int index) {
+            super(index);
+        }
+
+        @Override
+        protected ItemStack createDisplayIcon(Player player) {
+            slowLookup();
+            return super.createDisplayIcon(player);
+        }
+    }
+
+    /**
+     * A MenuItem whose display icon takes a millisecond to compute on a worker thread.
+     */
+    private static class AsyncSlowItem extends AsyncMenuItem {
+        AsyncSlowItem(StubServer server, int index) {
+            super(server.getPlugin(), new ItemStack(Material.PAPER), "Item " + index, "Loading...");
+        }
+
+        @Override
+        protected ItemStack computeDisplayIcon(Player player) {
+            slowLookup();
+            return getPlaceholder();
+        }
+
+        @Override
+        public void onClick(MenuClickEvent event) {}
+    }
+
+    /**
+     * A MenuItem with a per-item display name and lore that asks for a refresh when clicked.
+     */
+    private static class BenchmarkItem extends MenuItem {
+        BenchmarkItem(int index) {
+            super(new ItemStack(Material.PAPER), "Item " + index, "Price: " + index, "Click to refresh");
+        }
+
+        @Override
+        public void onClick(MenuClickEvent event) {
+            event.setResult(MenuClickEvent.Result.REFRESH);
+        }
+    }
+}
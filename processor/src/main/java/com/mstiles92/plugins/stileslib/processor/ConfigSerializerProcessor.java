@@ -0,0 +1,344 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * An annotation processor that generates a ConfigSerializer for every ConfigObject subclass being compiled, so that
+ * the class can be loaded and saved with plain field accesses instead of reflection.
+ *
+ * The generated serializer handles exactly the fields that ConfigObject would: every field declared by the class
+ * itself that is not transient, static, final, protected or private, stored at the field's name with each underscore
+ * replaced by a period. Classes that can not be handled this way are skipped and keep using reflection, which includes
+ * generic classes, private classes, classes that override doSkip or one of the protected loading and saving hooks of
+ * ConfigObject, and classes with a field whose type is not visible from their package.
+ */
+@SupportedAnnotationTypes("*")
+public class ConfigSerializerProcessor extends AbstractProcessor {
+    private static final String CONFIG_OBJECT = "com.mstiles92.plugins.stileslib.config.ConfigObject";
+    private static final String CONFIG_SERIALIZER = "com.mstiles92.plugins.stileslib.config.ConfigSerializer";
+    private static final String SECTION = "org.bukkit.configuration.ConfigurationSection";
+    private static final String SUFFIX = "_ConfigSerializer";
+    private static final Set<String> DIRECT_TYPES = new HashSet<>(Arrays.asList("java.lang.String",
+            "java.lang.Boolean", "java.lang.Byte", "java.lang.Short", "java.lang.Integer", "java.lang.Long",
+            "java.lang.Float", "java.lang.Double", "java.lang.Character"));
+    private static final String FIELD = "java.lang.reflect.Field";
+    private static final String[][] HOOKS = {
+            { "doSkip", FIELD },
+            { "loadObject", FIELD, SECTION, "java.lang.String" },
+            { "loadObject", FIELD, SECTION, "java.lang.String", "int" },
+            { "saveObject", "java.lang.Object", FIELD, SECTION, "java.lang.String" },
+            { "saveObject", "java.lang.Object", FIELD, SECTION, "java.lang.String", "int" },
+            { "getMap", FIELD, SECTION, "java.lang.String", "int" },
+            { "getList", FIELD, SECTION, "java.lang.String", "int" },
+            { "getMap", "java.util.Map", FIELD, SECTION, "java.lang.String", "int" },
+            { "getList", "java.util.List", FIELD, SECTION, "java.lang.String", "int" },
+            { "getClassAtDepth", "java.lang.reflect.Type", "int" },
+            { "isJSON", "java.lang.Object" }
+    };
+
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement configObject = processingEnv.getElementUtils().getTypeElement(CONFIG_OBJECT);
+        if (configObject == null) {
+            return false;
+        }
+
+        List<TypeElement> types = new ArrayList<>();
+        collectTypes(ElementFilter.typesIn(roundEnv.getRootElements()), types);
+
+        for (TypeElement type : types) {
+            if (isEligible(type, configObject)) {
+                String name = processingEnv.getElementUtils().getBinaryName(type) + SUFFIX;
+                if (generated.add(name)) {
+                    generate(type, name);
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Add the provided types and every type nested within them to the provided list.
+     *
+     * @param types the types to add
+     * @param result the list to add the types to
+     */
+    private void collectTypes(Iterable<TypeElement> types, List<TypeElement> result) {
+        for (TypeElement type : types) {
+            result.add(type);
+            collectTypes(ElementFilter.typesIn(type.getEnclosedElements()), result);
+        }
+    }
+
+    /**
+     * Check if a serializer can be generated for the provided type.
+     *
+     * @param type the type to check
+     * @param configObject the ConfigObject type
+     * @return true if a serializer should be generated
+     */
+    private boolean isEligible(TypeElement type, TypeElement configObject) {
+        if (type.getKind() != ElementKind.CLASS || !type.getTypeParameters().isEmpty()
+                || type.equals(configObject) || !isSubclass(type, configObject)) {
+            return false;
+        }
+
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+        }
+
+        for (TypeElement current = type; !current.equals(configObject); current = superclass(current)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(current.getEnclosedElements())) {
+                if (isHook(method)) {
+                    return false;
+                }
+            }
+        }
+
+        String packageName = getPackageName(type);
+        for (VariableElement field : getFields(type)) {
+            if (!isVisible(field.asType(), packageName)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Check if the provided method overrides one of the ConfigObject methods that a generated serializer would bypass.
+     *
+     * @param method the method to check
+     * @return true if the method overrides one of the hooks
+     */
+    private boolean isHook(ExecutableElement method) {
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (String[] hook : HOOKS) {
+            if (!method.getSimpleName().contentEquals(hook[0]) || parameters.size() != hook.length - 1) {
+                continue;
+            }
+
+            boolean matches = true;
+            for (int i = 0; i < parameters.size() && matches; i++) {
+                TypeMirror parameter = processingEnv.getTypeUtils().erasure(parameters.get(i).asType());
+                matches = parameter.toString().equals(hook[i + 1]);
+            }
+            if (matches) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isSubclass(TypeElement type, TypeElement configObject) {
+        for (TypeElement current = superclass(type); current != null; current = superclass(current)) {
+            if (current.equals(configObject)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    /**
+     * Check if the erasure of the provided type can be named from the provided package.
+     *
+     * @param type the type to check
+     * @param packageName the package the type is named from
+     * @return true if the type is visible
+     */
+    private boolean isVisible(TypeMirror type, String packageName) {
+        TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+        if (erased.getKind() == TypeKind.ARRAY) {
+            return isVisible(((ArrayType) erased).getComponentType(), packageName);
+        } else if (erased.getKind() != TypeKind.DECLARED) {
+            return erased.getKind().isPrimitive();
+        }
+
+        Element element = ((DeclaredType) erased).asElement();
+        boolean samePackage = getPackageName(element).equals(packageName);
+        for (; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || (!samePackage && !modifiers.contains(Modifier.PUBLIC))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the fields of the provided type that ConfigObject loads and saves.
+     *
+     * @param type the type to get the fields of
+     * @return the fields to be loaded and saved, in declaration order
+     */
+    private List<VariableElement> getFields(TypeElement type) {
+        List<VariableElement> fields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (!modifiers.contains(Modifier.TRANSIENT) && !modifiers.contains(Modifier.STATIC)
+                    && !modifiers.contains(Modifier.FINAL) && !modifiers.contains(Modifier.PROTECTED)
+                    && !modifiers.contains(Modifier.PRIVATE)) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    private String getPackageName(Element element) {
+        return processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+    }
+
+    /**
+     * Write the source of the serializer for the provided type.
+     *
+     * @param type the type to generate the serializer for
+     * @param name the binary name of the serializer
+     */
+    private void generate(TypeElement type, String name) {
+        String packageName = getPackageName(type);
+        String simpleName = packageName.isEmpty() ? name : name.substring(packageName.length() + 1);
+        String typeName = type.getQualifiedName().toString();
+        List<VariableElement> fields = getFields(type);
+
+        List<String> delegated = new ArrayList<>();
+        StringBuilder load = new StringBuilder();
+        StringBuilder save = new StringBuilder();
+        for (VariableElement field : fields) {
+            String fieldName = field.getSimpleName().toString();
+            String path = '"' + fieldName.replace('_', '.') + '"';
+            String access = "object." + fieldName;
+            String loaded;
+            String saved;
+
+            TypeMirror fieldType = field.asType();
+            if (fieldType.getKind().isPrimitive()) {
+                loaded = getPrimitive(fieldType.getKind(), "cs.get(" + path + ")");
+                saved = access;
+            } else if (DIRECT_TYPES.contains(fieldType.toString())) {
+                loaded = "(" + fieldType + ") cs.get(" + path + ")";
+                saved = access;
+            } else {
+                int index = delegated.size();
+                delegated.add(fieldName);
+                loaded = "(" + processingEnv.getTypeUtils().erasure(fieldType) + ") loadValue(object, " + index
+                        + ", cs, " + path + ")";
+                saved = "saveValue(object, " + index + ", " + access + ", cs, " + path + ")";
+            }
+
+            load.append("        if (cs.isSet(").append(path).append(")) {\n");
+            load.append("            ").append(access).append(" = ").append(loaded).append(";\n");
+            load.append("        } else {\n");
+            load.append("            cs.set(").append(path).append(", ").append(saved).append(");\n");
+            load.append("        }\n");
+            save.append("        cs.set(").append(path).append(", ").append(saved).append(");\n");
+        }
+
+        StringBuilder names = new StringBuilder();
+        for (String fieldName : delegated) {
+            names.append(", \"").append(fieldName).append('"');
+        }
+
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(name, type).openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("/**");
+            out.println(" * Generated by " + getClass().getName() + " from " + typeName + ". Do not edit.");
+            out.println(" */");
+            out.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+            out.println("public final class " + simpleName + " extends " + CONFIG_SERIALIZER + "<" + typeName + "> {");
+            out.println("    public " + simpleName + "() {");
+            out.println("        super(" + typeName + ".class" + names + ");");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public void load(" + typeName + " object, " + SECTION + " cs) throws Exception {");
+            out.print(load);
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public void save(" + typeName + " object, " + SECTION + " cs) throws Exception {");
+            out.print(save);
+            out.println("    }");
+            out.println("}");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write config serializer " + name + ": " + e.getMessage(), type);
+        }
+    }
+
+    /**
+     * Get the expression that converts a loaded value to the provided primitive type. Numbers are converted through
+     * the ConfigSerializer helpers, which reject any conversion that would lose information, the same way ConfigObject
+     * does.
+     *
+     * @param kind the primitive type
+     * @param value the expression for the loaded value
+     * @return the conversion expression
+     */
+    private String getPrimitive(TypeKind kind, String value) {
+        if (kind == TypeKind.BOOLEAN) {
+            return "(Boolean) " + value;
+        }
+
+        String name = kind.name().toLowerCase(Locale.ENGLISH);
+        return "to" + Character.toUpperCase(name.charAt(0)) + name.substring(1) + "(" + value + ")";
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.processor;
+
+import com.mstiles92.plugins.stileslib.config.ConfigObject;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ConfigSerializerProcessorTest {
+    private static final String[] MODEL = {
+            "package sample;",
+            "",
+            "import com.mstiles92.plugins.stileslib.config.ConfigObject;",
+            "import org.bukkit.configuration.ConfigurationSection;",
+            "import org.bukkit.util.Vector;",
+            "import java.util.*;",
+            "",
+            "public class Model extends ConfigObject {",
+            "    public enum Color { RED, GREEN }",
+            "",
+            "    public int count = 4;",
+            "    public byte small = 1;",
+            "    public short medium = 2;",
+            "    public long large = 3L;",
+            "    public float weight = 1.5F;",
+            "    public double ratio = 2.5;",
+            "    public boolean flag = true;",
+            "    public char letter = 'a';",
+            "    public Integer boxedCount = 7;",
+            "    public Double boxedRatio = 0.5;",
+            "    public String name = \"model\";",
+            "    public Color color = Color.GREEN;",
+            "    public List<String> tags = new ArrayList<>(Arrays.asList(\"a\", \"b\"));",
+            "    public Map<String, Integer> scores = new LinkedHashMap<>();",
+            "    public Vector offset = new Vector(1, 2, 3);",
+            "    public Nested nested = new Nested();",
+            "    public String some_path = \"nested path\";",
+            "    public transient int ignoredTransient = 1;",
+            "    public static int ignoredStatic = 2;",
+            "    public final int ignoredFinal = 3;",
+            "    protected int ignoredProtected = 4;",
+            "    private int ignoredPrivate = 5;",
+            "",
+            "    public Model() {",
+            "        scores.put(\"x\", 1);",
+            "    }",
+            "",
+            "    public void load(ConfigurationSection cs) throws Exception {",
+            "        onLoad(cs);",
+            "    }",
+            "",
+            "    public void save(ConfigurationSection cs) throws Exception {",
+            "        onSave(cs);",
+            "    }",
+            "",
+            "    public static class Nested extends ConfigObject {",
+            "        public String label = \"nested\";",
+            "    }",
+            "",
+            "    private static class Hidden extends ConfigObject {",
+            "        public int value = 0;",
+            "",
+            "        public static class Inner extends ConfigObject {",
+            "            public int value = 0;",
+            "        }",
+            "    }",
+            "}"
+    };
+
+    private static final String[] SKIP_MODEL = {
+            "package sample;",
+            "",
+            "import com.mstiles92.plugins.stileslib.config.ConfigObject;",
+            "import org.bukkit.configuration.ConfigurationSection;",
+            "import java.lang.reflect.Field;",
+            "",
+            "public class SkipModel extends ConfigObject {",
+            "    public int kept = 1;",
+            "    public int secret = 2;",
+            "",
+            "    public void save(ConfigurationSection cs) throws Exception {",
+            "        onSave(cs);",
+            "    }",
+            "",
+            "    @Override",
+            "    protected boolean doSkip(Field field) {",
+            "        return super.doSkip(field) || field.getName().equals(\"secret\");",
+            "    }",
+            "}"
+    };
+
+    private static final String[] HOOK_MODEL = {
+            "package sample;",
+            "",
+            "import com.mstiles92.plugins.stileslib.config.ConfigObject;",
+            "",
+            "public class HookModel extends ConfigObject {",
+            "    public int value = 1;",
+            "",
+            "    @Override",
+            "    protected boolean isJSON(Object obj) {",
+            "        return super.isJSON(obj);",
+            "    }",
+            "}"
+    };
+
+    private static final String[] GENERIC_MODEL = {
+            "package sample;",
+            "",
+            "import com.mstiles92.plugins.stileslib.config.ConfigObject;",
+            "",
+            "public class GenericModel<T> extends ConfigObject {",
+            "    public int value = 1;",
+            "}"
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ClassLoader generated;
+    private ClassLoader reflective;
+
+    @Before
+    public void setUp() throws Exception {
+        File sources = folder.newFolder("src");
+        List<File> files = new ArrayList<>();
+        files.add(write(sources, "Model", MODEL));
+        files.add(write(sources, "SkipModel", SKIP_MODEL));
+        files.add(write(sources, "HookModel", HOOK_MODEL));
+        files.add(write(sources, "GenericModel", GENERIC_MODEL));
+
+        generated = compile(files, true);
+        reflective = compile(files, false);
+    }
+
+    @Test
+    public void testGeneratesSerializers() throws Exception {
+        assertTrue(hasSerializer(generated, "sample.Model"));
+        assertTrue(hasSerializer(generated, "sample.Model$Nested"));
+        assertFalse(hasSerializer(reflective, "sample.Model"));
+    }
+
+    @Test
+    public void testSkipsIneligibleClasses() throws Exception {
+        assertFalse(hasSerializer(generated, "sample.Model$Hidden"));
+        assertFalse(hasSerializer(generated, "sample.Model$Hidden$Inner"));
+        assertFalse(hasSerializer(generated, "sample.GenericModel"));
+        assertFalse(hasSerializer(generated, "sample.SkipModel"));
+        assertFalse(hasSerializer(generated, "sample.HookModel"));
+    }
+
+    @Test
+    public void testDoSkipFallsBackToReflection() throws Exception {
+        YamlConfiguration config = new YamlConfiguration();
+        invoke(generated.loadClass("sample.SkipModel").newInstance(), "save", config);
+
+        assertEquals(1, config.getInt("kept"));
+        assertFalse(config.isSet("secret"));
+    }
+
+    @Test
+    public void testSaveMatchesReflection() throws Exception {
+        assertEquals(save(reflective, null), save(generated, null));
+    }
+
+    @Test
+    public void testLoadMatchesReflection() throws Exception {
+        YamlConfiguration input = new YamlConfiguration();
+        input.set("count", 9);
+        input.set("small", -3);
+        input.set("medium", 300);
+        input.set("large", 4.0);
+        input.set("weight", 0.25);
+        input.set("ratio", 7);
+        input.set("flag", false);
+        input.set("letter", "z");
+        input.set("boxedCount", 11);
+        input.set("boxedRatio", 1.25);
+        input.set("name", "loaded");
+        input.set("color", "RED");
+        input.set("tags", Arrays.asList("c"));
+        input.set("scores.y", 2);
+        input.set("offset", "{\"x\":\"4.0\",\"y\":\"5.0\",\"z\":\"6.0\"}");
+        input.set("nested.label", "changed");
+        input.set("some.path", "changed path");
+        String yaml = input.saveToString();
+
+        String expected = save(reflective, yaml);
+        assertEquals(expected, save(generated, yaml));
+        assertTrue(expected.contains("count: 9"));
+        assertTrue(expected.contains("label: changed"));
+    }
+
+    @Test
+    public void testLoadFillsMissingValuesLikeReflection() throws Exception {
+        assertEquals(load(reflective, "count: 9\n").saveToString(), load(generated, "count: 9\n").saveToString());
+    }
+
+    @Test
+    public void testRejectsLossyValuesLikeReflection() throws Exception {
+        for (ClassLoader loader : Arrays.asList(reflective, generated)) {
+            try {
+                load(loader, "count: 2.5\n");
+                fail("Expected a fractional value to be rejected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            try {
+                load(loader, "small: 300\n");
+                fail("Expected an out of range value to be rejected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    private File write(File directory, String name, String[] lines) throws IOException {
+        File file = new File(directory, name + ".java");
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            for (String line : lines) {
+                out.println(line);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Compile the provided sources against StilesLib and Bukkit, with or without the processor.
+     *
+     * @param files the sources to compile
+     * @param process true to run the processor
+     * @return a class loader for the compiled classes
+     * @throws Exception if the sources could not be compiled
+     */
+    private ClassLoader compile(List<File> files, boolean process) throws Exception {
+        File output = folder.newFolder();
+        String classpath = getLocation(ConfigObject.class) + File.pathSeparator
+                + getLocation(ConfigurationSection.class);
+        List<String> options = new ArrayList<>(Arrays.asList("-d", output.getPath(), "-s", output.getPath(),
+                "-classpath", classpath));
+        if (!process) {
+            options.add("-proc:none");
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("Tests must be run on a JDK", compiler);
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(files));
+            if (process) {
+                task.setProcessors(Arrays.asList(new ConfigSerializerProcessor()));
+            }
+            assertTrue(diagnostics.getDiagnostics().toString(), task.call());
+        }
+
+        return new URLClassLoader(new URL[] { output.toURI().toURL() }, getClass().getClassLoader());
+    }
+
+    private String getLocation(Class<?> clazz) throws Exception {
+        return new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+    }
+
+    private boolean hasSerializer(ClassLoader loader, String name) {
+        try {
+            Class.forName(name + "_ConfigSerializer", false, loader);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private YamlConfiguration load(ClassLoader loader, String yaml) throws Exception {
+        YamlConfiguration config = new YamlConfiguration();
+        config.loadFromString(yaml);
+        invoke(loader.loadClass("sample.Model").newInstance(), "load", config);
+        return config;
+    }
+
+    private String save(ClassLoader loader, String yaml) throws Exception {
+        Object model = loader.loadClass("sample.Model").newInstance();
+        if (yaml != null) {
+            YamlConfiguration input = new YamlConfiguration();
+            input.loadFromString(yaml);
+            invoke(model, "load", input);
+        }
+
+        YamlConfiguration output = new YamlConfiguration();
+        invoke(model, "save", output);
+        return output.saveToString();
+    }
+
+    private void invoke(Object model, String method, ConfigurationSection cs) throws Exception {
+        try {
+            model.getClass().getMethod(method, ConfigurationSection.class).invoke(model, cs);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -20,12 +20,17 @@ package com.mstiles92.plugins.stileslib.calendar;
 
 import java.util.Calendar;
 import java.util.GregorianCalendar;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class CalendarUtils {
     private static int[] calendarConstants = new int[] { Calendar.YEAR, Calendar.MONTH, Calendar.WEEK_OF_YEAR, Calendar.DAY_OF_YEAR, Calendar.HOUR_OF_DAY, Calendar.MINUTE, Calendar.SECOND };
     private static String[] calendarConstantNames = new String[] { "year", "month", "week", "day", "hour", "minute", "second" };
+    private static String[] calendarConstantPrefixes = new String[] { "y", "mo", "w", "d", "h", "m", "s" };
+
+    private static final long MINUTE_MILLIS = 60 * 1000;
+    private static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+    // no calendar day is shorter than this, even when daylight saving time starts
+    private static final long MIN_DAY_MILLIS = 20 * HOUR_MILLIS;
 
     /**
      * Create a calendar object for the current time plus the time specified by the input string.
@@ -35,53 +40,150 @@ public class CalendarUtils {
      * @return a calendar object for now plus the input time
      */
     public static Calendar parseTimeDifference(String input) {
-        Pattern pattern = Pattern.compile(
-                "(?:([0-9]+)\\s*y[a-z]*[,\\s]*)?" +
-                "(?:([0-9]+)\\s*mo[a-z]*[,\\s]*)?" +
-                "(?:([0-9]+)\\s*w[a-z]*[,\\s]*)?" +
-                "(?:([0-9]+)\\s*d[a-z]*[,\\s]*)?" +
-                "(?:([0-9]+)\\s*h[a-z]*[,\\s]*)?" +
-                "(?:([0-9]+)\\s*m[a-z]*[,\\s]*)?" +
-                "(?:([0-9]+)\\s*(?:s[a-z]*)?)?", Pattern.CASE_INSENSITIVE);
-
-        int[] units = new int[] { 0, 0, 0, 0, 0, 0, 0 };
-        boolean match = false;
-        Matcher matcher = pattern.matcher(input);
-
-        while (matcher.find()) {
-            if (matcher.group() == null || matcher.group().isEmpty()) {
-                continue;
+        int[] units = parseTimeUnits(input);
+
+        if (units == null) {
+            return null;
+        }
+
+        Calendar calendar = new GregorianCalendar();
+        for (int i = 0; i < units.length; i++) {
+            if (units[i] != 0) {
+                calendar.add(calendarConstants[i], units[i]);
             }
+        }
+
+        return calendar;
+    }
 
-            for (int i = 0; i < matcher.groupCount(); i++) {
-                if (matcher.group(i) != null && !matcher.group(i).isEmpty()) {
-                    match = true;
-                    break;
-                }
+    /**
+     * Parse the amount of each time unit specified by the input string, without creating a Calendar.
+     * Example of input string format: 1h30m22s = 1 hour, 30 minutes, and 22 seconds.
+     * <br>
+     * Units must appear in order from largest to smallest, and may be written out in full (5 minutes) or abbreviated
+     * (5m, 5min). A number with no unit is treated as seconds. Parsing starts at the first digit in the input string
+     * and stops at the first part of the input that can not be parsed.
+     *
+     * @param input the string value to parse
+     * @return an array of the amount of years, months, weeks, days, hours, minutes and seconds, in that order, or null
+     *         if the input string does not contain a time
+     * @throws NumberFormatException if the amount of any unit is too large to fit in an int
+     */
+    public static int[] parseTimeUnits(String input) {
+        int length = input.length();
+        int position = 0;
+
+        while (position < length && !isDigit(input.charAt(position))) {
+            position++;
+        }
+
+        if (position == length) {
+            return null;
+        }
+
+        int[] units = new int[calendarConstants.length];
+
+        for (int i = 0; i < units.length && position < length && isDigit(input.charAt(position)); i++) {
+            int numberEnd = position;
+            while (numberEnd < length && isDigit(input.charAt(numberEnd))) {
+                numberEnd++;
             }
 
-            if (match) {
-                for (int i = 0; i < units.length; i++) {
-                    String data = matcher.group(i + 1);
-                    if (data != null && !data.isEmpty()) {
-                        units[i] = Integer.parseInt(data);
-                    }
-                }
+            int unitEnd = matchUnit(input, skipWhitespace(input, numberEnd, false), i);
+            if (unitEnd >= 0) {
+                units[i] = parseAmount(input, position, numberEnd);
+                position = unitEnd;
+            }
+        }
 
-                break;
+        return units;
+    }
+
+    /**
+     * Match the name of the time unit at the provided index, along with any trailing separators.
+     *
+     * @param input the string being parsed
+     * @param position the position in the input string where the unit name should start
+     * @param unit the index of the time unit to match
+     * @return the position after the unit name and separators, or -1 if the unit name does not match
+     */
+    private static int matchUnit(String input, int position, int unit) {
+        String prefix = calendarConstantPrefixes[unit];
+        int length = input.length();
+
+        if (position + prefix.length() > length || !startsWithIgnoreCase(input, position, prefix)) {
+            // seconds are the default unit when no unit name is given
+            return unit == calendarConstantPrefixes.length - 1 ? position : -1;
+        }
+
+        position += prefix.length();
+        while (position < length && isLetter(input.charAt(position))) {
+            position++;
+        }
+
+        return skipWhitespace(input, position, true);
+    }
+
+    /**
+     * Parse the digits between the provided positions of the input string as an int.
+     *
+     * @param input the string being parsed
+     * @param start the position of the first digit
+     * @param end the position after the last digit
+     * @return the parsed amount
+     * @throws NumberFormatException if the amount is too large to fit in an int
+     */
+    private static int parseAmount(String input, int start, int end) {
+        long amount = 0;
+
+        for (int i = start; i < end; i++) {
+            amount = amount * 10 + (input.charAt(i) - '0');
+            if (amount > Integer.MAX_VALUE) {
+                throw new NumberFormatException("For input string: \"" + input.substring(start, end) + "\"");
             }
         }
 
-        if (!match) {
-            return null;
+        return (int) amount;
+    }
+
+    /**
+     * Skip past any whitespace, and optionally commas, starting at the provided position of the input string.
+     *
+     * @param input the string being parsed
+     * @param position the position to start skipping from
+     * @param commas whether commas should be skipped as well as whitespace
+     * @return the position of the first character that was not skipped
+     */
+    private static int skipWhitespace(String input, int position, boolean commas) {
+        while (position < input.length()) {
+            char c = input.charAt(position);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r' || (commas && c == ',')) {
+                position++;
+            } else {
+                break;
+            }
         }
 
-        Calendar calendar = new GregorianCalendar();
-        for (int i = 0; i < units.length; i++) {
-            calendar.add(calendarConstants[i], units[i]);
+        return position;
+    }
+
+    private static boolean startsWithIgnoreCase(String input, int position, String prefix) {
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = input.charAt(position + i);
+            if (!isLetter(c) || (c | 0x20) != prefix.charAt(i)) {
+                return false;
+            }
         }
 
-        return calendar;
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
     }
 
     /**
@@ -92,20 +194,57 @@ public class CalendarUtils {
      * @return the time difference between the two Calendar objects
      */
     public static String buildTimeDifference(Calendar first, Calendar second) {
-        Calendar firstCopy = new GregorianCalendar();
-        firstCopy.setTimeInMillis(first.getTimeInMillis());
+        return buildTimeDifference(first.getTimeInMillis(), second.getTimeInMillis());
+    }
 
-        if (firstCopy.equals(second)) {
+    /**
+     * Build up a String representing the difference in time between two points in time, specified in milliseconds
+     * since the epoch.
+     *
+     * @param first the first point in time
+     * @param second the second point in time
+     * @return the time difference between the two points in time
+     */
+    public static String buildTimeDifference(long first, long second) {
+        if (second - first < 1000) {
             return "now";
         }
 
+        int[] units = new int[calendarConstants.length];
+        long remaining = second - first;
+
+        if (remaining >= MIN_DAY_MILLIS) {
+            Calendar cursor = new GregorianCalendar();
+            Calendar probe = new GregorianCalendar();
+            cursor.setTimeInMillis(second);
+            int targetYear = cursor.get(Calendar.YEAR);
+            int targetMonth = cursor.get(Calendar.MONTH);
+            cursor.setTimeInMillis(first);
+
+            units[0] = countUnits(cursor, probe, Calendar.YEAR, targetYear - cursor.get(Calendar.YEAR), second);
+            cursor.add(Calendar.YEAR, units[0]);
+
+            int monthEstimate = (targetYear - cursor.get(Calendar.YEAR)) * 12 + targetMonth - cursor.get(Calendar.MONTH);
+            units[1] = countUnits(cursor, probe, Calendar.MONTH, monthEstimate, second);
+            cursor.add(Calendar.MONTH, units[1]);
+
+            int days = countUnits(cursor, probe, Calendar.DAY_OF_YEAR, (int) ((second - cursor.getTimeInMillis()) / DAY_MILLIS), second);
+            units[2] = days / 7;
+            units[3] = days % 7;
+            cursor.add(Calendar.DAY_OF_YEAR, days);
+
+            remaining = second - cursor.getTimeInMillis();
+        }
+
+        units[4] = (int) (remaining / HOUR_MILLIS);
+        units[5] = (int) (remaining % HOUR_MILLIS / MINUTE_MILLIS);
+        units[6] = (int) (remaining % MINUTE_MILLIS / 1000);
+
         StringBuilder s = new StringBuilder();
 
-        for (int i = 0; i < calendarConstants.length; i++) {
-            int difference = getDifference(calendarConstants[i], firstCopy, second);
-            if (difference > 0) {
-                s.append(difference).append(" ").append(calendarConstantNames[i]).append((difference > 1) ? "s " : " ");
-                firstCopy.add(calendarConstants[i], difference);
+        for (int i = 0; i < units.length; i++) {
+            if (units[i] > 0) {
+                s.append(units[i]).append(" ").append(calendarConstantNames[i]).append((units[i] > 1) ? "s " : " ");
             }
         }
 
@@ -117,23 +256,41 @@ public class CalendarUtils {
     }
 
     /**
-     * Get the difference in time between two calendars for an individual time unit.
+     * Get the largest number of the specified time unit that can be added to the cursor without passing the target.
      *
-     * @param constant the constant representing the time unit to compare
-     * @param first the first Calendar object
-     * @param second the second Calendar object
-     * @return the number of the specified time units between the first and second Calendar objects
+     * @param cursor the Calendar to count from, which will not be modified
+     * @param probe a Calendar used for intermediate calculations, which will be modified
+     * @param constant the constant representing the time unit to count
+     * @param estimate an estimate of the result, which should be off by no more than one or two units
+     * @param target the point in time, in milliseconds since the epoch, that should not be passed
+     * @return the number of the specified time units between the cursor and the target
      */
-    private static int getDifference(int constant, Calendar first, Calendar second) {
-        int difference = 0;
-        Calendar temp = new GregorianCalendar();
-        temp.setTimeInMillis(first.getTimeInMillis());
+    private static int countUnits(Calendar cursor, Calendar probe, int constant, int estimate, long target) {
+        int difference = Math.max(estimate, 0);
+
+        while (difference > 0 && addUnits(cursor, probe, constant, difference) > target) {
+            difference--;
+        }
 
-        while (!temp.after(second)) {
-            temp.add(constant, 1);
-            difference += 1;
+        while (addUnits(cursor, probe, constant, difference + 1) <= target) {
+            difference++;
         }
 
-        return difference - 1;
+        return difference;
+    }
+
+    /**
+     * Get the point in time that results from adding a number of the specified time unit to the cursor.
+     *
+     * @param cursor the Calendar to add to, which will not be modified
+     * @param probe a Calendar used to perform the addition, which will be modified
+     * @param constant the constant representing the time unit to add
+     * @param amount the number of time units to add
+     * @return the resulting point in time, in milliseconds since the epoch
+     */
+    private static long addUnits(Calendar cursor, Calendar probe, int constant, int amount) {
+        probe.setTimeInMillis(cursor.getTimeInMillis());
+        probe.add(constant, amount);
+        return probe.getTimeInMillis();
     }
 }
@@ -34,7 +34,6 @@ import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.SimplePluginManager;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.logging.Logger;
@@ -43,7 +42,8 @@ import java.util.logging.Logger;
  * The main class of this command framework, used for registering and handling all commands.
  */
 public class CommandRegistry {
-    private Map<String, Map.Entry<Method, Object>> commandMap = new HashMap<>();
+    private Map<String, RegisteredCommand> commandMap = new HashMap<>();
+    private volatile CommandTrie<RegisteredCommand> commandTrie = new CommandTrie<>(commandMap);
     private CommandMap map;
     private Plugin plugin;
     private Logger logger;
@@ -107,35 +107,25 @@ public class CommandRegistry {
      * to the parameters in this method.
      */
     public boolean handleCommand(CommandSender sender, org.bukkit.command.Command cmd, String label, String[] args) {
-        for (int i = args.length; i >= 0; i--) {
-            StringBuilder sb = new StringBuilder();
-            sb.append(label.toLowerCase());
-            for (int j = 0; j < i; j++) {
-                sb.append(".").append(args[j].toLowerCase());
-            }
-            String commandLabel = sb.toString();
-
-            if (commandMap.containsKey(commandLabel)) {
-                Map.Entry<Method, Object> entry = commandMap.get(commandLabel);
-                Command command = entry.getKey().getAnnotation(Command.class);
-                if (!sender.hasPermission(command.permission())) {
-                    sender.sendMessage((sender instanceof Player ? ChatColor.RED : "") + (noPermissionDefault == null ? command.noPermission() : noPermissionDefault));
-                    return true;
-                }
-
-                if (command.playerOnly() && !(sender instanceof Player)) {
-                    sender.sendMessage((playerOnlyDefault == null) ? command.playerOnlyMessage() : playerOnlyDefault);
-                    return true;
-                }
+        CommandTrie.Node<RegisteredCommand> node = commandTrie.find(label, args);
 
-                try {
-                    entry.getKey().invoke(entry.getValue(), new Arguments(sender, cmd, label, args, commandLabel.split("\\.").length - 1));
-                } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-                    e.printStackTrace();
-                }
+        if (node != null) {
+            RegisteredCommand command = node.getValue();
+            if (!sender.hasPermission(command.getPermission())) {
+                sender.sendMessage((sender instanceof Player ? ChatColor.RED : "") + (noPermissionDefault == null ? command.getNoPermissionMessage() : noPermissionDefault));
+                return true;
+            }
 
+            if (command.isPlayerOnly() && !(sender instanceof Player)) {
+                sender.sendMessage((playerOnlyDefault == null) ? command.getPlayerOnlyMessage() : playerOnlyDefault);
                 return true;
             }
+
+            try {
+                command.execute(new Arguments(sender, cmd, label, args, node.getDepth()));
+            } catch (Throwable t) {
+                t.printStackTrace();
+            }
         }
 
         return true;
@@ -155,9 +145,17 @@ public class CommandRegistry {
                     continue;
                 }
 
-                registerCommand(command, command.name(), m, handler);
+                RegisteredCommand registered;
+                try {
+                    registered = new RegisteredCommand(command, m, handler);
+                } catch (IllegalAccessException | SecurityException e) {
+                    logger.warning("Unable to register command " + m.getName() + ". Method could not be accessed!");
+                    continue;
+                }
+
+                registerCommand(command, command.name(), registered);
                 for (String alias : command.aliases()) {
-                    registerCommand(command, alias, m, handler);
+                    registerCommand(command, alias, registered);
                 }
             } else if (m.getAnnotation(TabCompleter.class) != null) {
                 TabCompleter completer = m.getAnnotation(TabCompleter.class);
@@ -177,6 +175,8 @@ public class CommandRegistry {
                 }
             }
         }
+
+        commandTrie = new CommandTrie<>(commandMap);
     }
 
     /**
@@ -202,12 +202,10 @@ public class CommandRegistry {
      *
      * @param command the Command annotation for the method
      * @param label the label of the command
-     * @param m the method to be used to handle the command
-     * @param handler the class that the method came from
+     * @param registered the handler method, bound to the class that it came from
      */
-    private void registerCommand(Command command, String label, Method m, CommandHandler handler) {
-        Map.Entry<Method, Object> entry = new AbstractMap.SimpleEntry<Method, Object>(m, handler);
-        commandMap.put(label.toLowerCase(), entry);
+    private void registerCommand(Command command, String label, RegisteredCommand registered) {
+        commandMap.put(label.toLowerCase(), registered);
         String commandLabel = label.split("\\.")[0].toLowerCase();
 
         if (map.getCommand(commandLabel) == null) {
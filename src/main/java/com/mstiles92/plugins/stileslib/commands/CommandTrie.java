@@ -0,0 +1,112 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.commands;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable prefix tree of dotted command labels, used to find the most specific registered command for a set of
+ * arguments without building any intermediate label strings.
+ *
+ * @param <T> the type of value stored for each registered label
+ */
+class CommandTrie<T> {
+    private final Node<T> root = new Node<>(-1);
+
+    /**
+     * Build a new trie from the provided map of dotted labels to values.
+     *
+     * @param entries the labels and values to be stored in the trie
+     */
+    CommandTrie(Map<String, ? extends T> entries) {
+        for (Map.Entry<String, ? extends T> entry : entries.entrySet()) {
+            Node<T> node = root;
+            for (String part : entry.getKey().split("\\.")) {
+                Node<T> child = node.children.get(part);
+                if (child == null) {
+                    child = new Node<>(node.depth + 1);
+                    node.children.put(part, child);
+                }
+                node = child;
+            }
+            node.value = entry.getValue();
+        }
+    }
+
+    /**
+     * Find the deepest node holding a value along the path of the provided label followed by the provided arguments.
+     * Matching is case-insensitive.
+     *
+     * @param label the label of the base command
+     * @param args the arguments used with the command
+     * @return the deepest matching node with a value, or null if there is no match
+     */
+    Node<T> find(String label, String[] args) {
+        Node<T> node = root.children.get(label);
+        Node<T> match = null;
+
+        for (int i = 0; node != null; i++) {
+            if (node.value != null) {
+                match = node;
+            }
+
+            if (i >= args.length) {
+                break;
+            }
+
+            node = node.children.get(args[i]);
+        }
+
+        return match;
+    }
+
+    /**
+     * A single node of the trie, representing one part of a dotted label.
+     *
+     * @param <T> the type of value stored for each registered label
+     */
+    static class Node<T> {
+        private final Map<String, Node<T>> children = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private final int depth;
+        private T value;
+
+        private Node(int depth) {
+            this.depth = depth;
+        }
+
+        /**
+         * Get the number of subcommand arguments consumed to reach this node.
+         *
+         * @return the number of arguments matched by this node
+         */
+        int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Get the value stored for this node.
+         *
+         * @return the value of this node, or null if no label ends at this node
+         */
+        T getValue() {
+            return value;
+        }
+    }
+}
@@ -22,21 +22,22 @@ import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.AbstractMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class CustomCompleter implements TabCompleter {
-    private Map<String, Map.Entry<Method, Object>> completers = new HashMap<>();
+    private Map<String, RegisteredCompleter> completers = new HashMap<>();
 
     public void addCompleter(String label, Method m, Object o) {
-        completers.put(label, new AbstractMap.SimpleEntry<>(m, o));
+        try {
+            completers.put(label, new RegisteredCompleter(m, o));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Unable to access tab completer " + m.getName(), e);
+        }
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String label, String[] args) {
         for (int i = args.length; i >= 0; i--) {
@@ -50,17 +51,17 @@ public class CustomCompleter implements TabCompleter {
             String commandLabel = sb.toString();
 
             if (completers.containsKey(commandLabel)) {
-                Map.Entry<Method, Object> entry = completers.get(commandLabel);
+                RegisteredCompleter completer = completers.get(commandLabel);
                 try {
-                    List<String> labelParts = (List<String>) entry.getKey().invoke(entry.getValue(), new Arguments(sender, command, commandLabel, args, commandLabel.split("\\.").length - 1));
+                    List<String> labelParts = completer.complete(new Arguments(sender, command, commandLabel, args, commandLabel.split("\\.").length - 1));
 
                     if (labelParts.size() == 0) {
                         return null;
                     } else {
                         return labelParts;
                     }
-                } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-                    e.printStackTrace();
+                } catch (Throwable t) {
+                    t.printStackTrace();
                 }
             }
         }
@@ -0,0 +1,116 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.commands;
+
+import com.mstiles92.plugins.stileslib.commands.annotations.Command;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * A command handler method bound to its CommandHandler instance, along with the values of its Command annotation, so
+ * that dispatching a command does not need any reflection.
+ */
+class RegisteredCommand {
+    private static final MethodType COMMAND_TYPE = MethodType.methodType(void.class, Arguments.class);
+
+    private final MethodHandle handle;
+    private final String permission;
+    private final String noPermission;
+    private final boolean playerOnly;
+    private final String playerOnlyMessage;
+
+    /**
+     * Bind the provided method to its handler and cache the values of its Command annotation.
+     *
+     * @param command the Command annotation for the method
+     * @param m the method to be used to handle the command
+     * @param handler the object that the method will be invoked on
+     * @throws IllegalAccessException if the method can not be accessed
+     */
+    RegisteredCommand(Command command, Method m, Object handler) throws IllegalAccessException {
+        this.handle = bind(m, handler, COMMAND_TYPE);
+        this.permission = command.permission();
+        this.noPermission = command.noPermission();
+        this.playerOnly = command.playerOnly();
+        this.playerOnlyMessage = command.playerOnlyMessage();
+    }
+
+    /**
+     * Create a MethodHandle for the provided method, bound to the provided object and adapted to the provided type.
+     *
+     * @param m the method to create a handle for
+     * @param target the object that the method will be invoked on
+     * @param type the type that the bound handle should be adapted to
+     * @return a MethodHandle that invokes the method on the target object
+     * @throws IllegalAccessException if the method can not be accessed
+     */
+    static MethodHandle bind(Method m, Object target, MethodType type) throws IllegalAccessException {
+        m.setAccessible(true);
+        return MethodHandles.lookup().unreflect(m).bindTo(target).asType(type);
+    }
+
+    /**
+     * Invoke the bound handler method.
+     *
+     * @param args the arguments to pass to the handler method
+     * @throws Throwable anything thrown by the handler method
+     */
+    void execute(Arguments args) throws Throwable {
+        handle.invokeExact(args);
+    }
+
+    /**
+     * Get the permission that is required to use this command.
+     *
+     * @return the permission node required to use this command
+     */
+    String getPermission() {
+        return permission;
+    }
+
+    /**
+     * Get the message to be sent to the player when they do not have permission to execute this command.
+     *
+     * @return the message to send to players without permission to use this command
+     */
+    String getNoPermissionMessage() {
+        return noPermission;
+    }
+
+    /**
+     * Check if the command should only be used by a player.
+     *
+     * @return true if only players should be allowed to use the command, false otherwise
+     */
+    boolean isPlayerOnly() {
+        return playerOnly;
+    }
+
+    /**
+     * Get the message to be sent to the non-player command sender if they attempt to use a player-only command.
+     *
+     * @return the message to send to a non-player command sender if the command is player-only
+     */
+    String getPlayerOnlyMessage() {
+        return playerOnlyMessage;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.commands;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * A tab completer method bound to the object it was registered from, so that tab completion does not need any
+ * reflection.
+ */
+class RegisteredCompleter {
+    private static final MethodType COMPLETER_TYPE = MethodType.methodType(List.class, Arguments.class);
+
+    private final MethodHandle handle;
+
+    /**
+     * Bind the provided method to the object it should be invoked on.
+     *
+     * @param m the method to be used to handle the tab completion
+     * @param target the object that the method will be invoked on
+     * @throws IllegalAccessException if the method can not be accessed
+     */
+    RegisteredCompleter(Method m, Object target) throws IllegalAccessException {
+        this.handle = RegisteredCommand.bind(m, target, COMPLETER_TYPE);
+    }
+
+    /**
+     * Invoke the bound tab completer method.
+     *
+     * @param args the arguments to pass to the tab completer method
+     * @return the list of completions returned by the tab completer method
+     * @throws Throwable anything thrown by the tab completer method
+     */
+    @SuppressWarnings("unchecked")
+    List<String> complete(Arguments args) throws Throwable {
+        return (List<String>) handle.invokeExact(args);
+    }
+}
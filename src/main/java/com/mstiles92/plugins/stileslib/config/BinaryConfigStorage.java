@@ -0,0 +1,379 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import com.google.common.base.Charsets;
+import org.bukkit.configuration.Configuration;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores configurations in a compact binary format, which can be read straight from a ByteBuffer without any text
+ * parsing.
+ *
+ * A file starts with the magic bytes "SLCB" and a format version, followed by the root section. Every value is
+ * written as a single tag byte followed by its contents. Sections and lists start with their size, and strings with
+ * their length in UTF-8 bytes, all written as unsigned variable-length integers. Numbers are written big-endian,
+ * except for BigIntegers and BigDecimals, which are written as their decimal string so they keep their full precision.
+ * Objects implementing ConfigurationSerializable are stored as sections holding their serialized form and type alias,
+ * just as they are in YAML, so every value a YamlConfiguration can hold round trips through this format as well.
+ */
+public class BinaryConfigStorage implements ConfigStorage {
+    private static final byte[] MAGIC = { 'S', 'L', 'C', 'B' };
+    private static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte SECTION = 1;
+    private static final byte LIST = 2;
+    private static final byte STRING = 3;
+    private static final byte TRUE = 4;
+    private static final byte FALSE = 5;
+    private static final byte INT = 6;
+    private static final byte LONG = 7;
+    private static final byte FLOAT = 8;
+    private static final byte DOUBLE = 9;
+    private static final byte BIG_INTEGER = 10;
+    private static final byte BIG_DECIMAL = 11;
+
+    @Override
+    public Configuration create(String header) {
+        return new MemoryConfiguration();
+    }
+
+    @Override
+    public Configuration read(File file) throws IOException, InvalidConfigurationException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new InvalidConfigurationException("File is too large: " + file);
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new InvalidConfigurationException("Unexpected end of file: " + file);
+                }
+            }
+            buffer.flip();
+            return decode(buffer);
+        }
+    }
+
+    @Override
+    public void write(Configuration config, File file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(encode(config));
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Encode a configuration section in the binary format.
+     *
+     * @param section the section to be encoded
+     * @return the encoded section, including the file header
+     * @throws IOException if the section holds a value that can not be encoded
+     */
+    public static byte[] encode(ConfigurationSection section) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        writeValue(out, section);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode a configuration from the binary format. The buffer may be a heap buffer or a memory-mapped file, and its
+     * position is advanced past the decoded configuration.
+     *
+     * @param buffer the buffer holding the encoded configuration, including the file header
+     * @return the decoded configuration
+     * @throws InvalidConfigurationException if the buffer does not hold a valid configuration
+     */
+    public static Configuration decode(ByteBuffer buffer) throws InvalidConfigurationException {
+        try {
+            for (byte b : MAGIC) {
+                if (buffer.get() != b) {
+                    throw new InvalidConfigurationException("Not a binary config file");
+                }
+            }
+
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new InvalidConfigurationException("Unsupported binary config version: " + version);
+            }
+
+            Object root = readValue(buffer);
+            if (!(root instanceof Map)) {
+                throw new InvalidConfigurationException("Root value is not a section");
+            }
+
+            MemoryConfiguration config = new MemoryConfiguration();
+            convertMapsToSections((Map<?, ?>) root, config);
+            return config;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new InvalidConfigurationException(e);
+        }
+    }
+
+    /**
+     * Write a single tagged value.
+     *
+     * @param out the stream to write to
+     * @param value the value to be written
+     * @throws IOException if the value can not be encoded
+     */
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String || value instanceof Character) {
+            out.writeByte(STRING);
+            writeString(out, value.toString());
+        } else if (value instanceof ConfigurationSection) {
+            writeMap(out, ((ConfigurationSection) value).getValues(false));
+        } else if (value instanceof Map) {
+            writeMap(out, (Map<?, ?>) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(INT);
+            out.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof BigInteger) {
+            out.writeByte(BIG_INTEGER);
+            writeString(out, value.toString());
+        } else if (value instanceof BigDecimal) {
+            out.writeByte(BIG_DECIMAL);
+            writeString(out, value.toString());
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            out.writeByte(LIST);
+            writeVarInt(out, collection.size());
+            for (Object element : collection) {
+                writeValue(out, element);
+            }
+        } else if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            out.writeByte(LIST);
+            writeVarInt(out, length);
+            for (int i = 0; i < length; i++) {
+                writeValue(out, Array.get(value, i));
+            }
+        } else if (value instanceof ConfigurationSerializable) {
+            ConfigurationSerializable serializable = (ConfigurationSerializable) value;
+            Map<String, Object> serialized = new LinkedHashMap<>();
+            serialized.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, ConfigurationSerialization.getAlias(serializable.getClass()));
+            serialized.putAll(serializable.serialize());
+            writeMap(out, serialized);
+        } else {
+            throw new IOException("Unable to encode value of type " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * Write a map of values as a section.
+     *
+     * @param out the stream to write to
+     * @param map the values to be written
+     * @throws IOException if any value can not be encoded
+     */
+    private static void writeMap(DataOutputStream out, Map<?, ?> map) throws IOException {
+        out.writeByte(SECTION);
+        writeVarInt(out, map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            writeString(out, String.valueOf(entry.getKey()));
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    /**
+     * Write a string as its length followed by its UTF-8 bytes.
+     *
+     * @param out the stream to write to
+     * @param value the string to be written
+     * @throws IOException if the string could not be written
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(Charsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Write a non-negative integer using seven bits per byte, with the high bit set on every byte but the last.
+     *
+     * @param out the stream to write to
+     * @param value the integer to be written
+     * @throws IOException if the integer could not be written
+     */
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Read a single tagged value. Sections are read as maps, and maps holding a serialized object are deserialized.
+     *
+     * @param buffer the buffer to read from
+     * @return the value that was read
+     * @throws InvalidConfigurationException if the buffer holds an unknown tag
+     */
+    private static Object readValue(ByteBuffer buffer) throws InvalidConfigurationException {
+        byte tag = buffer.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case SECTION:
+                int size = readVarInt(buffer);
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    String key = readString(buffer);
+                    map.put(key, readValue(buffer));
+                }
+                if (map.containsKey(ConfigurationSerialization.SERIALIZED_TYPE_KEY)) {
+                    return ConfigurationSerialization.deserializeObject(map);
+                }
+                return map;
+            case LIST:
+                int length = readVarInt(buffer);
+                List<Object> list = new ArrayList<>(Math.min(length, buffer.remaining()));
+                for (int i = 0; i < length; i++) {
+                    list.add(readValue(buffer));
+                }
+                return list;
+            case STRING:
+                return readString(buffer);
+            case TRUE:
+                return true;
+            case FALSE:
+                return false;
+            case INT:
+                return buffer.getInt();
+            case LONG:
+                return buffer.getLong();
+            case FLOAT:
+                return buffer.getFloat();
+            case DOUBLE:
+                return buffer.getDouble();
+            case BIG_INTEGER:
+                return new BigInteger(readString(buffer));
+            case BIG_DECIMAL:
+                return new BigDecimal(readString(buffer));
+            default:
+                throw new InvalidConfigurationException("Unknown value tag: " + tag);
+        }
+    }
+
+    /**
+     * Read a string written by {@link #writeString(DataOutputStream, String)}.
+     *
+     * @param buffer the buffer to read from
+     * @return the string that was read
+     */
+    private static String readString(ByteBuffer buffer) {
+        int length = readVarInt(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+
+        if (buffer.hasArray()) {
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, Charsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, Charsets.UTF_8);
+    }
+
+    /**
+     * Read an integer written by {@link #writeVarInt(DataOutputStream, int)}.
+     *
+     * @param buffer the buffer to read from
+     * @return the integer that was read
+     */
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable-length integer");
+    }
+
+    /**
+     * Store the values of a decoded map in a configuration section, turning nested maps into nested sections in the
+     * same way YamlConfiguration does.
+     *
+     * @param map the decoded values
+     * @param section the section the values should be stored in
+     */
+    private static void convertMapsToSections(Map<?, ?> map, ConfigurationSection section) {
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            String key = entry.getKey().toString();
+            Object value = entry.getValue();
+
+            if (value instanceof Map) {
+                convertMapsToSections((Map<?, ?>) value, section.createSection(key));
+            } else {
+                section.set(key, value);
+            }
+        }
+    }
+}
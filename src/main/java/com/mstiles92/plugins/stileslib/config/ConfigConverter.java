@@ -0,0 +1,50 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Converts config files between storage formats.
+ */
+public final class ConfigConverter {
+
+    private ConfigConverter() {}
+
+    /**
+     * Convert a config file from one storage format to another. The target file is written with the same crash-safe
+     * replacement used when saving a ConfigModel. Comments in a YAML source file are not preserved, apart from its
+     * header when converting to YAML.
+     *
+     * @param source the file to be converted
+     * @param from the format the source file is stored in
+     * @param target the file the converted config should be written to, which may be the same as the source file
+     * @param to the format the target file should be written in
+     * @throws InvalidConfigurationException if the source file could not be read or the target file could not be
+     *                                       written
+     */
+    public static void convert(File source, ConfigStorage from, File target, ConfigStorage to) throws InvalidConfigurationException {
+        if (source == null || from == null || target == null || to == null) throw new InvalidConfigurationException(new NullPointerException());
+        if (!source.exists()) throw new InvalidConfigurationException(new IOException("File doesn't exist"));
+        ConfigFiles.write(to, ConfigFiles.read(from, source), target, 0);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The executors used to move config file I/O off of the thread that requested it.
+ *
+ * All file I/O is run on a single daemon thread with a bounded queue, so reads and writes of the same file are always
+ * performed in the order they were requested, and a burst of requests can not pile up an unbounded amount of work.
+ */
+final class ConfigExecutors {
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final ListeningExecutorService io;
+
+    static {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(QUEUE_CAPACITY),
+                new ThreadFactoryBuilder().setNameFormat("StilesLib Config I/O #%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        io = MoreExecutors.listeningDecorator(executor);
+    }
+
+    private ConfigExecutors() {}
+
+    /**
+     * Submit a task to be run on the config I/O thread.
+     *
+     * @param task the task to be run
+     * @param <T> the type of the result of the task
+     * @return a future for the result of the task, which will have failed if the I/O queue is full
+     */
+    static <T> ListenableFuture<T> submit(Callable<T> task) {
+        try {
+            return io.submit(task);
+        } catch (RejectedExecutionException e) {
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
+    /**
+     * Get the executor that should be used to run callbacks for a config operation.
+     *
+     * Once the plugin has been disabled, the scheduler no longer accepts its tasks, so callbacks are run on whichever
+     * thread completed the previous step instead. Otherwise a save started just before the plugin was disabled would
+     * never complete, and anything waiting on it would block forever.
+     *
+     * @param plugin the plugin whose main thread callbacks should be run on, or null to run callbacks on whichever
+     *               thread completed the previous step
+     * @return the executor for callbacks
+     */
+    static Executor callbacks(final Plugin plugin) {
+        if (plugin == null) {
+            return MoreExecutors.sameThreadExecutor();
+        }
+
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (Bukkit.isPrimaryThread() || !plugin.isEnabled()) {
+                    command.run();
+                    return;
+                }
+
+                try {
+                    Bukkit.getScheduler().runTask(plugin, command);
+                } catch (IllegalPluginAccessException e) {
+                    // the plugin was disabled after it was checked
+                    command.run();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import org.bukkit.Location;
+import org.bukkit.util.Vector;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precomputed description of a field of a ConfigObject, holding everything needed to load and save it: its path in
+ * the configuration, the class of the field and of its nested type arguments, and the codec used at each depth.
+ *
+ * Values loaded into a primitive field are converted to the field's type only when no information is lost, so a float
+ * field accepts the Double that YAML loads, but an int field rejects 2.7 and a byte field rejects 300.
+ */
+class ConfigField {
+    private final Field field;
+    private final String path;
+    private final Class<?>[] types;
+    private final Codec[] codecs;
+
+    /**
+     * Resolve the path, types and codecs of the provided field.
+     *
+     * @param field the field to describe
+     */
+    ConfigField(Field field) {
+        this.field = field;
+        this.path = field.getName().replace('_', '.');
+        try {
+            field.setAccessible(true);
+        } catch (SecurityException e) {
+            // public fields of public classes can still be accessed
+        }
+
+        List<Class<?>> resolved = new ArrayList<>();
+        Type type = field.getGenericType();
+        resolved.add(resolve(type));
+        while (type instanceof ParameterizedType) {
+            Type[] typeArgs = ((ParameterizedType) type).getActualTypeArguments();
+            type = typeArgs[typeArgs.length - 1];
+            resolved.add(resolve(type));
+        }
+        this.types = resolved.toArray(new Class<?>[resolved.size()]);
+
+        this.codecs = new Codec[types.length];
+        for (int i = 0; i < types.length; i++) {
+            codecs[i] = Codec.of(types[i], i + 1 < types.length ? types[i + 1] : null);
+        }
+    }
+
+    /**
+     * Get the described field.
+     *
+     * @return the field
+     */
+    Field getField() {
+        return field;
+    }
+
+    /**
+     * Get the path of the field in the configuration, with every underscore in its name replaced by a period.
+     *
+     * @return the path of the field
+     */
+    String getPath() {
+        return path;
+    }
+
+    /**
+     * Get the class of the field at the specified depth, where depth 0 is the field itself and each following depth
+     * is the last type argument of the previous one. Primitive types are returned as their wrapper classes.
+     *
+     * @param depth the depth of the class to get
+     * @return the class at the specified depth
+     * @throws Exception if the type at the previous depth has no type arguments
+     */
+    Class<?> getType(int depth) throws Exception {
+        if (depth >= types.length) {
+            throw new Exception("Field " + field.getName() + " has no type argument at depth " + depth);
+        }
+
+        return types[depth];
+    }
+
+    /**
+     * Get the codec used to load and save the field at the specified depth.
+     *
+     * @param depth the depth of the codec to get
+     * @return the codec at the specified depth
+     * @throws Exception if the type at the previous depth has no type arguments
+     */
+    Codec getCodec(int depth) throws Exception {
+        if (depth >= codecs.length) {
+            throw new Exception("Field " + field.getName() + " has no type argument at depth " + depth);
+        }
+
+        return codecs[depth];
+    }
+
+    /**
+     * Get the value of the field on the provided object.
+     *
+     * @param target the object to get the value from
+     * @return the value of the field, boxed if the field is primitive
+     * @throws Exception if the value could not be read
+     */
+    Object get(Object target) throws Exception {
+        return field.get(target);
+    }
+
+    /**
+     * Set the value of the field on the provided object. A value for a primitive field is converted to the type of the
+     * field if that can be done without losing information, and a single character string may be used to set a char
+     * field.
+     *
+     * @param target the object to set the value on
+     * @param value the new value of the field
+     * @throws Exception if the value could not be written or is not valid for the field
+     */
+    void set(Object target, Object value) throws Exception {
+        Class<?> type = field.getType();
+        if (type.isPrimitive()) {
+            if (value == null) {
+                throw new IllegalArgumentException("Can not set primitive field " + field.getName() + " to null");
+            }
+
+            try {
+                value = toPrimitive(type, value);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Can not set field " + field.getName() + ": " + e.getMessage(), e);
+            }
+        }
+
+        field.set(target, value);
+    }
+
+    /**
+     * Convert a loaded value to the provided primitive type without losing information.
+     *
+     * @param type the primitive type
+     * @param value the loaded value
+     * @return the converted value, boxed
+     */
+    private static Object toPrimitive(Class<?> type, Object value) {
+        if (type == int.class) return toInt(value);
+        if (type == long.class) return toLong(value);
+        if (type == double.class) return toDouble(value);
+        if (type == float.class) return toFloat(value);
+        if (type == short.class) return toShort(value);
+        if (type == byte.class) return toByte(value);
+        if (type == char.class) return toChar(value);
+        return value;
+    }
+
+    /**
+     * Convert a loaded value to a byte, if it is a whole number within the range of a byte.
+     *
+     * @param value the loaded value
+     * @return the value as a byte
+     * @throws IllegalArgumentException if the value is not a whole number or is out of range
+     */
+    static byte toByte(Object value) {
+        return (byte) toWholeNumber(value, Byte.MIN_VALUE, Byte.MAX_VALUE, "byte");
+    }
+
+    /**
+     * Convert a loaded value to a short, if it is a whole number within the range of a short.
+     *
+     * @param value the loaded value
+     * @return the value as a short
+     * @throws IllegalArgumentException if the value is not a whole number or is out of range
+     */
+    static short toShort(Object value) {
+        return (short) toWholeNumber(value, Short.MIN_VALUE, Short.MAX_VALUE, "short");
+    }
+
+    /**
+     * Convert a loaded value to an int, if it is a whole number within the range of an int.
+     *
+     * @param value the loaded value
+     * @return the value as an int
+     * @throws IllegalArgumentException if the value is not a whole number or is out of range
+     */
+    static int toInt(Object value) {
+        return (int) toWholeNumber(value, Integer.MIN_VALUE, Integer.MAX_VALUE, "int");
+    }
+
+    /**
+     * Convert a loaded value to a long, if it is a whole number within the range of a long.
+     *
+     * @param value the loaded value
+     * @return the value as a long
+     * @throws IllegalArgumentException if the value is not a whole number or is out of range
+     */
+    static long toLong(Object value) {
+        return toWholeNumber(value, Long.MIN_VALUE, Long.MAX_VALUE, "long");
+    }
+
+    /**
+     * Convert a loaded value to a float. YAML loads every decimal number as a Double, so doubles are accepted and
+     * rounded to the nearest float.
+     *
+     * @param value the loaded value
+     * @return the value as a float
+     * @throws IllegalArgumentException if the value is not a number
+     */
+    static float toFloat(Object value) {
+        if (!(value instanceof Number)) {
+            throw new IllegalArgumentException(value + " is not a valid float");
+        }
+        return ((Number) value).floatValue();
+    }
+
+    /**
+     * Convert a loaded value to a double.
+     *
+     * @param value the loaded value
+     * @return the value as a double
+     * @throws IllegalArgumentException if the value is not a number
+     */
+    static double toDouble(Object value) {
+        if (!(value instanceof Number)) {
+            throw new IllegalArgumentException(value + " is not a valid double");
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    /**
+     * Convert a loaded value to a char, accepting a single character string as YAML stores chars that way.
+     *
+     * @param value the loaded value
+     * @return the value as a char
+     */
+    static char toChar(Object value) {
+        if (value instanceof String && ((String) value).length() == 1) {
+            return ((String) value).charAt(0);
+        }
+        return (Character) value;
+    }
+
+    /**
+     * Convert a loaded value to a whole number within the provided range. Integral values and floating point values
+     * without a fractional part are accepted.
+     *
+     * @param value the loaded value
+     * @param min the smallest value allowed
+     * @param max the largest value allowed
+     * @param typeName the name of the type being converted to, for error messages
+     * @return the value as a long
+     * @throws IllegalArgumentException if the value is not a whole number or is out of range
+     */
+    private static long toWholeNumber(Object value, long min, long max, String typeName) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            long number = ((Number) value).longValue();
+            if (number >= min && number <= max) {
+                return number;
+            }
+        } else if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            if (number == Math.rint(number) && number >= min && number < (double) max + 1) {
+                return (long) number;
+            }
+        } else if (value instanceof BigInteger && ((BigInteger) value).bitLength() < 64) {
+            long number = ((BigInteger) value).longValue();
+            if (number >= min && number <= max) {
+                return number;
+            }
+        }
+
+        throw new IllegalArgumentException(value + " is not a valid " + typeName);
+    }
+
+    /**
+     * Resolve the provided type to the class that values of that type are loaded as.
+     *
+     * @param type the type to resolve
+     * @return the raw class of the type, with primitive types replaced by their wrapper classes
+     */
+    static Class<?> resolve(Type type) {
+        if (type instanceof Class) {
+            return wrap((Class<?>) type);
+        } else if (type instanceof ParameterizedType) {
+            return resolve(((ParameterizedType) type).getRawType());
+        } else if (type instanceof WildcardType) {
+            return resolve(((WildcardType) type).getUpperBounds()[0]);
+        } else if (type instanceof TypeVariable) {
+            return resolve(((TypeVariable<?>) type).getBounds()[0]);
+        } else if (type instanceof GenericArrayType) {
+            return Array.newInstance(resolve(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+
+        return Object.class;
+    }
+
+    private static Class<?> wrap(Class<?> clazz) {
+        if (!clazz.isPrimitive()) return clazz;
+        if (clazz == byte.class) return Byte.class;
+        if (clazz == short.class) return Short.class;
+        if (clazz == int.class) return Integer.class;
+        if (clazz == long.class) return Long.class;
+        if (clazz == float.class) return Float.class;
+        if (clazz == double.class) return Double.class;
+        if (clazz == char.class) return Character.class;
+        if (clazz == boolean.class) return Boolean.class;
+        return clazz;
+    }
+
+    /**
+     * The ways a value can be converted between its field representation and its configuration representation.
+     */
+    enum Codec {
+        CONFIG_OBJECT, LOCATION, VECTOR, MAP, ENUM, LIST, VALUE;
+
+        /**
+         * Choose the codec for values of the provided class.
+         *
+         * @param clazz the class of the values
+         * @param elementClazz the class of the values' last type argument, or null if it has none
+         * @return the codec for the values
+         */
+        static Codec of(Class<?> clazz, Class<?> elementClazz) {
+            if (ConfigObject.class.isAssignableFrom(clazz)) {
+                return CONFIG_OBJECT;
+            } else if (Location.class.isAssignableFrom(clazz)) {
+                return LOCATION;
+            } else if (Vector.class.isAssignableFrom(clazz)) {
+                return VECTOR;
+            } else if (Map.class.isAssignableFrom(clazz)) {
+                return MAP;
+            } else if (clazz.isEnum()) {
+                return ENUM;
+            } else if (List.class.isAssignableFrom(clazz) && elementClazz != null && isStructured(elementClazz)) {
+                return LIST;
+            }
+
+            return VALUE;
+        }
+
+        /**
+         * Check if list elements of the provided class need to be encoded, rather than stored as they are.
+         *
+         * @param clazz the class of the elements
+         * @return true if the elements need to be encoded
+         */
+        static boolean isStructured(Class<?> clazz) {
+            return ConfigObject.class.isAssignableFrom(clazz) || Location.class.isAssignableFrom(clazz)
+                    || Vector.class.isAssignableFrom(clazz) || Map.class.isAssignableFrom(clazz)
+                    || List.class.isAssignableFrom(clazz) || clazz.isEnum();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import org.bukkit.configuration.Configuration;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Crash-safe reading and writing of config files in any storage format.
+ */
+final class ConfigFiles {
+
+    private ConfigFiles() {}
+
+    /**
+     * Read the provided file in the provided format.
+     *
+     * @param storage the format the file is stored in
+     * @param file the file to be read
+     * @return the contents of the file
+     * @throws InvalidConfigurationException if the file could not be read
+     */
+    static Configuration read(ConfigStorage storage, File file) throws InvalidConfigurationException {
+        try {
+            return storage.read(file);
+        } catch (IOException ex) {
+            throw new InvalidConfigurationException(ex);
+        }
+    }
+
+    /**
+     * Write the provided configuration to the provided file. The configuration is first written to a temporary file
+     * in the same directory and synced to disk, and then moved over the original file, so a crash part way through a
+     * save can never leave a truncated config behind. The temporary file is created with the default permissions, and
+     * takes on the POSIX permissions of the original file when there is one, so saving never changes the file's mode.
+     *
+     * @param storage the format the file should be written in
+     * @param config the configuration to be written
+     * @param file the file to be written to
+     * @param backups the number of previous versions of the file to keep as numbered backups
+     * @throws InvalidConfigurationException if the file could not be written
+     */
+    static void write(ConfigStorage storage, Configuration config, File file, int backups) throws InvalidConfigurationException {
+        Path target = file.toPath().toAbsolutePath();
+        Path directory = target.getParent();
+        Path temp = null;
+
+        try {
+            Files.createDirectories(directory);
+            temp = createTempFile(target);
+            if (Files.exists(target) && isPosix(target)) {
+                Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+            }
+            storage.write(config, temp.toFile());
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+
+            if (backups > 0 && Files.exists(target)) {
+                rotateBackups(target, backups);
+            }
+
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+
+            try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+                channel.force(true);
+            } catch (IOException e) {
+                // Not every platform allows directories to be synced, in which case the rename is left to the OS.
+            }
+        } catch (Exception ex) {
+            throw new InvalidConfigurationException(ex);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Create an empty temporary file next to the provided file. Unlike Files.createTempFile, which makes the file
+     * readable by its owner only, the file is created with the default permissions for new files.
+     *
+     * @param target the file the temporary file will replace
+     * @return the temporary file
+     * @throws IOException if the file could not be created
+     */
+    private static Path createTempFile(Path target) throws IOException {
+        String prefix = target.getFileName().toString() + ".";
+        while (true) {
+            String name = prefix + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp";
+            Path temp = target.resolveSibling(name);
+            try {
+                Files.newByteChannel(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE).close();
+                return temp;
+            } catch (FileAlreadyExistsException e) {
+                // pick another name
+            }
+        }
+    }
+
+    /**
+     * Check if the file system holding the provided file supports POSIX file permissions.
+     *
+     * @param file the file to check
+     * @return true if POSIX file permissions are supported
+     */
+    private static boolean isPosix(Path file) {
+        return file.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+    /**
+     * Shift the numbered backups of the provided file up by one, dropping the oldest, and copy the current file into
+     * the first backup.
+     *
+     * @param target the file being backed up
+     * @param backups the number of backups to keep
+     * @throws IOException if the backups could not be rotated
+     */
+    private static void rotateBackups(Path target, int backups) throws IOException {
+        String name = target.getFileName().toString();
+        Files.deleteIfExists(target.resolveSibling(name + "." + backups));
+        for (int i = backups - 1; i > 0; i--) {
+            Path backup = target.resolveSibling(name + "." + i);
+            if (Files.exists(backup)) {
+                Files.move(backup, target.resolveSibling(name + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.copy(target, target.resolveSibling(name + ".1"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Copy every value from one configuration section into another, creating new nested sections rather than sharing
+     * them.
+     *
+     * @param from the section to copy values from
+     * @param to the section to copy values into
+     * @return the section the values were copied into
+     */
+    static ConfigurationSection copy(ConfigurationSection from, ConfigurationSection to) {
+        for (Map.Entry<String, Object> entry : from.getValues(false).entrySet()) {
+            if (entry.getValue() instanceof ConfigurationSection) {
+                copy((ConfigurationSection) entry.getValue(), to.createSection(entry.getKey()));
+            } else {
+                to.set(entry.getKey(), entry.getValue());
+            }
+        }
+        return to;
+    }
+}
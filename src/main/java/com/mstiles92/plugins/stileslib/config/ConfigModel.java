@@ -18,10 +18,23 @@
 
 package com.mstiles92.plugins.stileslib.config;
 
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.bukkit.configuration.Configuration;
 import org.bukkit.configuration.InvalidConfigurationException;
-import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
 
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
     /*
     * SuperEasyConfig - Config
@@ -42,6 +55,13 @@ import java.io.*;
 public abstract class ConfigModel extends ConfigObject {
     protected transient File CONFIG_FILE = null;
     protected transient String CONFIG_HEADER = null;
+    protected transient int CONFIG_BACKUPS = 0;
+    protected transient ConfigStorage CONFIG_STORAGE = ConfigStorage.YAML;
+    protected transient boolean CONFIG_LAZY = false;
+    private transient volatile byte[] savedSnapshot = null;
+    private transient volatile long fileModified = -1;
+    private transient volatile long fileLength = -1;
+    private transient BukkitTask pendingSave = null;
 
     public ConfigModel() {
         CONFIG_HEADER = null;
@@ -57,16 +77,77 @@ public abstract class ConfigModel extends ConfigObject {
     public ConfigModel reload() throws InvalidConfigurationException {
         if (CONFIG_FILE == null) throw new InvalidConfigurationException(new NullPointerException());
         if (!CONFIG_FILE.exists()) throw new InvalidConfigurationException(new IOException("File doesn't exist"));
-        YamlConfiguration yamlConfig = YamlConfiguration.loadConfiguration(CONFIG_FILE);
-        try {
-            onLoad(yamlConfig);
-            yamlConfig.save(CONFIG_FILE);
-        } catch (Exception ex) {
-            throw new InvalidConfigurationException(ex);
+        recordFileState(CONFIG_FILE);
+        Configuration config = ConfigFiles.read(CONFIG_STORAGE, CONFIG_FILE);
+        boolean changed = applyLoadOrRestore(config);
+        byte[] snapshot = snapshot();
+        if (changed) {
+            ConfigFiles.write(CONFIG_STORAGE, config, CONFIG_FILE, CONFIG_BACKUPS);
+            recordFileState(CONFIG_FILE);
         }
+        savedSnapshot = snapshot;
         return this;
     }
 
+    /**
+     * Reload this model from its file without blocking the calling thread. The file is read and parsed on the config
+     * I/O thread, and the loaded values are applied to this model on the same thread.
+     *
+     * @return a future that completes with this model once it has been reloaded
+     */
+    public ListenableFuture<ConfigModel> reloadAsync() {
+        return reloadAsync(null);
+    }
+
+    /**
+     * Reload this model from its file without blocking the calling thread. The file is read and parsed on the config
+     * I/O thread, and the loaded values are applied to this model on the main thread of the provided plugin.
+     *
+     * @param plugin the plugin whose main thread the loaded values should be applied on, or null to apply them on
+     *               the config I/O thread
+     * @return a future that completes with this model once it has been reloaded
+     */
+    public ListenableFuture<ConfigModel> reloadAsync(Plugin plugin) {
+        return reloadAsync(plugin, true);
+    }
+
+    /**
+     * Reload this model from its file without blocking the calling thread. If the file can not be read or parsed, or
+     * its values can not be loaded, the future fails and this model keeps its current values.
+     *
+     * @param plugin the plugin whose main thread the loaded values should be applied on, or null to apply them on
+     *               the config I/O thread
+     * @param writeMissing true to write any values missing from the file back to it, false to never touch the file
+     * @return a future that completes with this model once it has been reloaded
+     */
+    ListenableFuture<ConfigModel> reloadAsync(Plugin plugin, final boolean writeMissing) {
+        final File file = CONFIG_FILE;
+        final ConfigStorage storage = CONFIG_STORAGE;
+        ListenableFuture<Configuration> read = ConfigExecutors.submit(new Callable<Configuration>() {
+            @Override
+            public Configuration call() throws Exception {
+                if (file == null) throw new InvalidConfigurationException(new NullPointerException());
+                if (!file.exists()) throw new InvalidConfigurationException(new IOException("File doesn't exist"));
+                recordFileState(file);
+                return ConfigFiles.read(storage, file);
+            }
+        });
+
+        return Futures.transform(read, new AsyncFunction<Configuration, ConfigModel>() {
+            @Override
+            public ListenableFuture<ConfigModel> apply(Configuration config) throws Exception {
+                boolean changed = applyLoadOrRestore(config);
+                byte[] snapshot = snapshot();
+                if (changed && writeMissing) {
+                    return writeAsync(storage, config, file, snapshot);
+                }
+                // values missing from the file that were not written back leave this model dirty
+                savedSnapshot = changed ? null : snapshot;
+                return Futures.<ConfigModel>immediateFuture(ConfigModel.this);
+            }
+        }, ConfigExecutors.callbacks(plugin));
+    }
+
     public ConfigModel save(File file) throws InvalidConfigurationException {
         if (file == null) throw new InvalidConfigurationException(new NullPointerException());
         CONFIG_FILE = file;
@@ -75,33 +156,146 @@ public abstract class ConfigModel extends ConfigObject {
 
     public ConfigModel save() throws InvalidConfigurationException {
         if (CONFIG_FILE == null) throw new InvalidConfigurationException(new NullPointerException());
-        if (!CONFIG_FILE.exists()) {
-            try {
-                if (CONFIG_FILE.getParentFile() != null) CONFIG_FILE.getParentFile().mkdirs();
-                CONFIG_FILE.createNewFile();
-                if (CONFIG_HEADER != null) {
-                    Writer newConfig = new BufferedWriter(new FileWriter(CONFIG_FILE));
-                    boolean firstLine = true;
-                    for (String line : CONFIG_HEADER.split("\n")) {
-                        if (!firstLine) {
-                            newConfig.write("\n");
-                        } else {
-                            firstLine = false;
-                        }
-                        newConfig.write("# " + line);
+        Configuration config = prepare(CONFIG_STORAGE, CONFIG_FILE, CONFIG_HEADER);
+        applySave(config);
+        byte[] snapshot = snapshot();
+        ConfigFiles.write(CONFIG_STORAGE, config, CONFIG_FILE, CONFIG_BACKUPS);
+        recordFileState(CONFIG_FILE);
+        savedSnapshot = snapshot;
+        return this;
+    }
+
+    /**
+     * Save this model to its file without blocking the calling thread. The existing file is read and the new file is
+     * written on the config I/O thread, and the values of this model are collected on the same thread.
+     *
+     * @return a future that completes with this model once it has been saved
+     */
+    public ListenableFuture<ConfigModel> saveAsync() {
+        return saveAsync(null);
+    }
+
+    /**
+     * Save this model to its file without blocking the calling thread. The existing file is read and the new file is
+     * written on the config I/O thread, and the values of this model are collected on the main thread of the provided
+     * plugin.
+     *
+     * @param plugin the plugin whose main thread the values of this model should be collected on, or null to collect
+     *               them on the config I/O thread
+     * @return a future that completes with this model once it has been saved
+     */
+    public ListenableFuture<ConfigModel> saveAsync(Plugin plugin) {
+        final File file = CONFIG_FILE;
+        final String header = CONFIG_HEADER;
+        final ConfigStorage storage = CONFIG_STORAGE;
+        ListenableFuture<Configuration> read = ConfigExecutors.submit(new Callable<Configuration>() {
+            @Override
+            public Configuration call() throws Exception {
+                if (file == null) throw new InvalidConfigurationException(new NullPointerException());
+                return prepare(storage, file, header);
+            }
+        });
+
+        return Futures.transform(read, new AsyncFunction<Configuration, ConfigModel>() {
+            @Override
+            public ListenableFuture<ConfigModel> apply(Configuration config) throws Exception {
+                applySave(config);
+                return writeAsync(storage, config, file, snapshot());
+            }
+        }, ConfigExecutors.callbacks(plugin));
+    }
+
+    /**
+     * Check if the values of this model have changed since it was last loaded from or saved to its file.
+     *
+     * @return true if the values of this model have changed, or if it has never been loaded or saved
+     * @throws InvalidConfigurationException if the values of this model could not be read
+     */
+    public boolean isDirty() throws InvalidConfigurationException {
+        byte[] snapshot = savedSnapshot;
+        return snapshot == null || !Arrays.equals(snapshot, snapshot());
+    }
+
+    /**
+     * Save this model to its file, but only if its values have changed since it was last loaded or saved.
+     *
+     * @return this model
+     * @throws InvalidConfigurationException if the model could not be saved
+     */
+    public ConfigModel saveIfDirty() throws InvalidConfigurationException {
+        if (isDirty()) {
+            save();
+        }
+        return this;
+    }
+
+    /**
+     * Request that this model be saved to its file after the provided delay. Any further requests made before the
+     * save happens are coalesced into the same save, and the file is only written if the values of this model have
+     * changed by the time the save runs.
+     *
+     * @param plugin the plugin the save should be scheduled for
+     * @param delay the delay before the save happens, in server ticks
+     */
+    public synchronized void saveLater(final Plugin plugin, long delay) {
+        if (pendingSave != null) {
+            return;
+        }
+
+        pendingSave = new BukkitRunnable() {
+            @Override
+            public void run() {
+                synchronized (ConfigModel.this) {
+                    pendingSave = null;
+                }
+
+                try {
+                    if (isDirty()) {
+                        Futures.addCallback(saveAsync(plugin), new FutureCallback<ConfigModel>() {
+                            @Override
+                            public void onSuccess(ConfigModel result) {}
+
+                            @Override
+                            public void onFailure(Throwable t) {
+                                t.printStackTrace();
+                            }
+                        });
                     }
-                    newConfig.close();
+                } catch (InvalidConfigurationException e) {
+                    e.printStackTrace();
                 }
-            } catch (Exception ex) {
-                throw new InvalidConfigurationException(ex);
+            }
+        }.runTaskLater(plugin, delay);
+    }
+
+    /**
+     * Immediately save this model if its values have changed, cancelling any pending save requested by
+     * {@link #saveLater(Plugin, long)} and waiting for any saves already in progress to finish. This should be called
+     * when the plugin owning this model is disabled, as pending saves will not run after that point.
+     *
+     * @return this model
+     * @throws InvalidConfigurationException if the model could not be saved
+     */
+    public ConfigModel flush() throws InvalidConfigurationException {
+        synchronized (this) {
+            if (pendingSave != null) {
+                pendingSave.cancel();
+                pendingSave = null;
             }
         }
-        YamlConfiguration yamlConfig = YamlConfiguration.loadConfiguration(CONFIG_FILE);
-        try {
-            onSave(yamlConfig);
-            yamlConfig.save(CONFIG_FILE);
-        } catch (Exception ex) {
-            throw new InvalidConfigurationException(ex);
+
+        if (isDirty()) {
+            try {
+                saveAsync().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InvalidConfigurationException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof InvalidConfigurationException) {
+                    throw (InvalidConfigurationException) e.getCause();
+                }
+                throw new InvalidConfigurationException(e.getCause());
+            }
         }
         return this;
     }
@@ -117,4 +311,133 @@ public abstract class ConfigModel extends ConfigObject {
         if (CONFIG_FILE.exists()) return reload();
         else return save();
     }
+
+    /**
+     * Check if the file of this model has been changed by something else since this model last read or wrote it.
+     *
+     * @return true if the modification time or size of the file differ from when this model last read or wrote it
+     */
+    boolean isFileChanged() {
+        File file = CONFIG_FILE;
+        return file != null && (file.lastModified() != fileModified || file.length() != fileLength);
+    }
+
+    /**
+     * Remember the modification time and size of the provided file, so changes made to it by something other than
+     * this model can be detected.
+     *
+     * @param file the file that was just read or written
+     */
+    private void recordFileState(File file) {
+        fileModified = file.lastModified();
+        fileLength = file.length();
+    }
+
+    /**
+     * Apply the values of the provided configuration to this model, filling in any values missing from the
+     * configuration with the current values of this model.
+     *
+     * @param config the configuration to be loaded
+     * @return true if any missing values were added to the configuration and it should be written back to disk
+     * @throws InvalidConfigurationException if the configuration could not be loaded
+     */
+    private boolean applyLoad(Configuration config) throws InvalidConfigurationException {
+        int keys = config.getKeys(true).size();
+        try {
+            setLazy(CONFIG_LAZY);
+            onLoad(config);
+        } catch (Exception ex) {
+            throw new InvalidConfigurationException(ex);
+        }
+        return config.getKeys(true).size() != keys;
+    }
+
+    /**
+     * Apply the values of the provided configuration to this model like {@link #applyLoad(Configuration)}, restoring
+     * the previous values of this model if the configuration can not be loaded, so a failed load never leaves the
+     * model half updated.
+     *
+     * @param config the configuration to be loaded
+     * @return true if any missing values were added to the configuration and it should be written back to disk
+     * @throws InvalidConfigurationException if the configuration could not be loaded
+     */
+    private boolean applyLoadOrRestore(Configuration config) throws InvalidConfigurationException {
+        byte[] previous = snapshot();
+        try {
+            return applyLoad(config);
+        } catch (InvalidConfigurationException ex) {
+            applyLoad(BinaryConfigStorage.decode(ByteBuffer.wrap(previous)));
+            throw ex;
+        }
+    }
+
+    /**
+     * Take a snapshot of the current values of this model, which can be compared to later snapshots to find out if
+     * any values have changed.
+     *
+     * @return the serialized values of this model
+     * @throws InvalidConfigurationException if the values of this model could not be read
+     */
+    private byte[] snapshot() throws InvalidConfigurationException {
+        Configuration config = new MemoryConfiguration();
+        applySave(config);
+        try {
+            return BinaryConfigStorage.encode(config);
+        } catch (IOException ex) {
+            throw new InvalidConfigurationException(ex);
+        }
+    }
+
+    /**
+     * Store the values of this model in the provided configuration.
+     *
+     * @param config the configuration the values should be stored in
+     * @throws InvalidConfigurationException if the values could not be stored
+     */
+    private void applySave(Configuration config) throws InvalidConfigurationException {
+        try {
+            onSave(config);
+        } catch (Exception ex) {
+            throw new InvalidConfigurationException(ex);
+        }
+    }
+
+    /**
+     * Read the current contents of the provided file, or start a new configuration with the provided header if the
+     * file does not exist yet.
+     *
+     * @param storage the format the file is stored in
+     * @param file the file to be read
+     * @param header the header to be used for a new file, or null for no header
+     * @return the current contents of the file
+     * @throws InvalidConfigurationException if the file could not be read
+     */
+    private static Configuration prepare(ConfigStorage storage, File file, String header) throws InvalidConfigurationException {
+        if (file.exists()) {
+            return ConfigFiles.read(storage, file);
+        }
+        return storage.create(header);
+    }
+
+    /**
+     * Write the provided configuration to the provided file on the config I/O thread.
+     *
+     * @param storage the format the file should be written in
+     * @param config the configuration to be written
+     * @param file the file to be written to
+     * @param snapshot the snapshot of the values of this model that are being written
+     * @return a future that completes with this model once the file has been written
+     */
+    private ListenableFuture<ConfigModel> writeAsync(final ConfigStorage storage, final Configuration config, final File file, final byte[] snapshot) {
+        final int backups = CONFIG_BACKUPS;
+        return ConfigExecutors.submit(new Callable<ConfigModel>() {
+            @Override
+            public ConfigModel call() throws Exception {
+                ConfigFiles.write(storage, config, file, backups);
+                recordFileState(file);
+                savedSnapshot = snapshot;
+                return ConfigModel.this;
+            }
+        });
+    }
 }
\ No newline at end of file
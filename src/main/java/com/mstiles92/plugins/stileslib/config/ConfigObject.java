@@ -27,10 +27,14 @@ import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
     /*
     * SuperEasyConfig - ConfigObject
@@ -49,35 +53,79 @@ import java.util.*;
     */
 
 public abstract class ConfigObject {
+    private static final ConcurrentMap<Class<?>, Schema> schemas = new ConcurrentHashMap<>();
+
+    /**
+     * The protected hooks that the cached schema path does not call. A subclass overriding any of them is loaded and
+     * saved through the hooks instead, so that its overrides keep taking effect.
+     */
+    private static final Object[][] HOOKS = {
+            { "loadObject", Field.class, ConfigurationSection.class, String.class },
+            { "loadObject", Field.class, ConfigurationSection.class, String.class, int.class },
+            { "saveObject", Object.class, Field.class, ConfigurationSection.class, String.class },
+            { "saveObject", Object.class, Field.class, ConfigurationSection.class, String.class, int.class },
+            { "getMap", Field.class, ConfigurationSection.class, String.class, int.class },
+            { "getList", Field.class, ConfigurationSection.class, String.class, int.class },
+            { "getMap", Map.class, Field.class, ConfigurationSection.class, String.class, int.class },
+            { "getList", List.class, Field.class, ConfigurationSection.class, String.class, int.class },
+            { "getClassAtDepth", Type.class, int.class },
+            { "isJSON", Object.class }
+    };
+
+    private transient boolean lazy = false;
 
     /*
       * loading and saving
       */
 
     protected void onLoad(ConfigurationSection cs) throws Exception {
-        for (Field field : getClass().getDeclaredFields()) {
-            String path = field.getName().replaceAll("_", ".");
-            if (doSkip(field)) {
-                // Do nothing
+        Schema schema = getSchema();
+        ConfigSerializer<ConfigObject> serializer = schema.overridesHooks ? null : getSerializer();
+        if (serializer != null) {
+            serializer.load(this, cs);
+            return;
+        }
+
+        for (ConfigField field : schema.fields) {
+            String path = field.getPath();
+            if (schema.overridesHooks) {
+                if (cs.isSet(path)) {
+                    field.set(this, loadObject(field.getField(), cs, path));
+                } else {
+                    cs.set(path, saveObject(field.get(this), field.getField(), cs, path));
+                }
             } else if (cs.isSet(path)) {
-                field.set(this, loadObject(field, cs, path));
+                field.set(this, loadObject(field, cs, path, 0));
             } else {
-                cs.set(path, saveObject(field.get(this), field, cs, path));
+                cs.set(path, saveObject(field.get(this), field, cs, path, 0));
             }
         }
     }
 
     protected void onSave(ConfigurationSection cs) throws Exception {
-        for (Field field : getClass().getDeclaredFields()) {
-            String path = field.getName().replaceAll("_", ".");
-            if (doSkip(field)) {
-                // Do nothing
+        Schema schema = getSchema();
+        ConfigSerializer<ConfigObject> serializer = schema.overridesHooks ? null : getSerializer();
+        if (serializer != null) {
+            serializer.save(this, cs);
+            return;
+        }
+
+        for (ConfigField field : schema.fields) {
+            String path = field.getPath();
+            if (schema.overridesHooks) {
+                cs.set(path, saveObject(field.get(this), field.getField(), cs, path));
             } else {
-                cs.set(path, saveObject(field.get(this), field, cs, path));
+                cs.set(path, saveObject(field.get(this), field, cs, path, 0));
             }
         }
     }
 
+    /*
+     * The Field based hooks below are only called for classes that override at least one of them, or one of the other
+     * hooks listed in HOOKS. Every other class is loaded and saved through the cached ConfigField schema, or through a
+     * generated ConfigSerializer.
+     */
+
     protected Object loadObject(Field field, ConfigurationSection cs, String path) throws Exception {
         return loadObject(field, cs, path, 0);
     }
@@ -89,26 +137,24 @@ public abstract class ConfigObject {
     @SuppressWarnings("rawtypes")
     protected Object loadObject(Field field, ConfigurationSection cs, String path, int depth) throws Exception {
         Class clazz = getClassAtDepth(field.getGenericType(), depth);
-        if (ConfigObject.class.isAssignableFrom(clazz) && isConfigurationSection(cs.get(path))) {
-            return getConfigObject(clazz, cs.getConfigurationSection(path));
-        } else if (Location.class.isAssignableFrom(clazz) && isJSON(cs.get(path))) {
-            return getLocation((String) cs.get(path));
-        } else if (Vector.class.isAssignableFrom(clazz) && isJSON(cs.get(path))) {
-            return getVector((String) cs.get(path));
-        } else if (Map.class.isAssignableFrom(clazz) && isConfigurationSection(cs.get(path))) {
-            return getMap(field, cs.getConfigurationSection(path), path, depth);
-        } else if (clazz.isEnum() && isString(cs.get(path))) {
-            return getEnum(clazz, (String) cs.get(path));
-        } else if (List.class.isAssignableFrom(clazz) && isConfigurationSection(cs.get(path))) {
+        Object value = cs.get(path);
+        if (ConfigObject.class.isAssignableFrom(clazz) && isConfigurationSection(value)) {
+            return getConfigObject(clazz, (ConfigurationSection) value);
+        } else if (Location.class.isAssignableFrom(clazz) && isJSON(value)) {
+            return getLocation((String) value);
+        } else if (Vector.class.isAssignableFrom(clazz) && isJSON(value)) {
+            return getVector((String) value);
+        } else if (Map.class.isAssignableFrom(clazz) && isConfigurationSection(value)) {
+            return getMap(field, (ConfigurationSection) value, path, depth);
+        } else if (clazz.isEnum() && isString(value)) {
+            return getEnum(clazz, (String) value);
+        } else if (List.class.isAssignableFrom(clazz) && isConfigurationSection(value)) {
             Class subClazz = getClassAtDepth(field.getGenericType(), depth + 1);
-            if (ConfigObject.class.isAssignableFrom(subClazz) || Location.class.isAssignableFrom(subClazz) || Vector.class.isAssignableFrom(subClazz) || Map.class.isAssignableFrom(subClazz) || List.class.isAssignableFrom(subClazz) || subClazz.isEnum()) {
-                return getList(field, cs.getConfigurationSection(path), path, depth);
-            } else {
-                return cs.get(path);
+            if (ConfigField.Codec.isStructured(subClazz)) {
+                return getList(field, (ConfigurationSection) value, path, depth);
             }
-        } else {
-            return cs.get(path);
         }
+        return value;
     }
 
     @SuppressWarnings("rawtypes")
@@ -126,14 +172,202 @@ public abstract class ConfigObject {
             return getEnum((Enum) obj);
         } else if (List.class.isAssignableFrom(clazz) && isList(obj)) {
             Class subClazz = getClassAtDepth(field.getGenericType(), depth + 1);
-            if (ConfigObject.class.isAssignableFrom(subClazz) || Location.class.isAssignableFrom(subClazz) || Vector.class.isAssignableFrom(subClazz) || Map.class.isAssignableFrom(subClazz) || List.class.isAssignableFrom(subClazz) || subClazz.isEnum()) {
+            if (ConfigField.Codec.isStructured(subClazz)) {
                 return getList((List) obj, field, cs, path, depth);
-            } else {
+            }
+        }
+        return obj;
+    }
+
+    Object loadObject(ConfigField field, ConfigurationSection cs, String path, int depth) throws Exception {
+        return loadValue(field, cs.get(path), path, depth);
+    }
+
+    /**
+     * Decode a value that has already been read from its section.
+     *
+     * @param field the field being loaded
+     * @param value the stored value
+     * @param path the path the value was stored at, relative to its section
+     * @param depth the depth of the value within the field's type
+     * @return the decoded value
+     * @throws Exception if the value could not be decoded
+     */
+    private Object loadValue(ConfigField field, Object value, String path, int depth) throws Exception {
+        switch (field.getCodec(depth)) {
+            case CONFIG_OBJECT:
+                return isConfigurationSection(value) ? getConfigObject(field.getType(depth), (ConfigurationSection) value) : value;
+            case LOCATION:
+                return isJSONObject(value) ? getLocation((String) value) : value;
+            case VECTOR:
+                return isJSONObject(value) ? getVector((String) value) : value;
+            case MAP:
+                if (!isConfigurationSection(value)) return value;
+                if (isLazy(field, depth, LazyValues.LazyMap.class)) return getLazyMap(field, (ConfigurationSection) value, path);
+                return getMap(field, (ConfigurationSection) value, path, depth);
+            case ENUM:
+                return isString(value) ? getEnum(field.getType(depth), (String) value) : value;
+            case LIST:
+                if (!isConfigurationSection(value)) return value;
+                if (isLazy(field, depth, LazyValues.LazyList.class)) return getLazyList(field, (ConfigurationSection) value, path);
+                return getList(field, (ConfigurationSection) value, path, depth);
+            default:
+                return value;
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    Object saveObject(Object obj, ConfigField field, ConfigurationSection cs, String path, int depth) throws Exception {
+        if (obj instanceof LazyValues.Lazy) {
+            ConfigurationSection source = ((LazyValues.Lazy) obj).getSource();
+            if (source != null) {
+                return ConfigFiles.copy(source, cs.createSection(path));
+            }
+        }
+        switch (field.getCodec(depth)) {
+            case CONFIG_OBJECT:
+                return isConfigObject(obj) ? getConfigObject((ConfigObject) obj, path, cs) : obj;
+            case LOCATION:
+                return isLocation(obj) ? getLocation((Location) obj) : obj;
+            case VECTOR:
+                return isVector(obj) ? getVector((Vector) obj) : obj;
+            case MAP:
+                return isMap(obj) ? getMap((Map) obj, field, cs, path, depth) : obj;
+            case ENUM:
+                return isEnum(field.getType(depth), obj) ? getEnum((Enum) obj) : obj;
+            case LIST:
+                return isList(obj) ? getList((List) obj, field, cs, path, depth) : obj;
+            default:
                 return obj;
+        }
+    }
+
+    /**
+     * Set whether this object should load its Map and List fields lazily. When enabled, any top level Map or List
+     * field whose declared type is an interface is filled with a proxy that keeps the stored section and only decodes
+     * it the first time the field is accessed. Nested objects loaded by this object use the same setting. A proxy that
+     * has not been accessed yet is saved by copying its stored section, without decoding it. Decoded maps keep the
+     * order of the stored section, so accessing a proxy does not change how it is saved.
+     *
+     * This saves the time spent decoding values that are never accessed, not memory: until it is accessed, a proxy
+     * keeps the whole stored section alive, which is usually larger than the decoded value.
+     *
+     * Values that fail to decode lazily throw an IllegalStateException when first accessed, instead of failing the
+     * load.
+     *
+     * @param lazy true to load Map and List fields lazily
+     */
+    void setLazy(boolean lazy) {
+        this.lazy = lazy;
+    }
+
+    /**
+     * Check if the value of the provided field at the provided depth should be loaded lazily.
+     *
+     * @param field the field being loaded
+     * @param depth the depth of the value being loaded
+     * @param proxyType the type of the proxy that would be stored in the field
+     * @return true if the value should be loaded lazily
+     */
+    private boolean isLazy(ConfigField field, int depth, Class<?> proxyType) {
+        return lazy && depth == 0 && field.getField().getType().isAssignableFrom(proxyType);
+    }
+
+    /**
+     * Create a map that will be decoded from the provided section the first time it is accessed.
+     *
+     * @param field the field being loaded
+     * @param cs the section holding the encoded map
+     * @param path the path of the field
+     * @return the lazily decoded map
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Object, Object> getLazyMap(final ConfigField field, final ConfigurationSection cs, final String path) {
+        return new LazyValues.LazyMap(cs, new Callable<Map<Object, Object>>() {
+            @Override
+            public Map<Object, Object> call() throws Exception {
+                return getMap(field, cs, path, 0);
+            }
+        });
+    }
+
+    /**
+     * Create a list that will be decoded from the provided section the first time it is accessed.
+     *
+     * @param field the field being loaded
+     * @param cs the section holding the encoded list
+     * @param path the path of the field
+     * @return the lazily decoded list
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object> getLazyList(final ConfigField field, final ConfigurationSection cs, final String path) {
+        return new LazyValues.LazyList(cs, new Callable<List<Object>>() {
+            @Override
+            public List<Object> call() throws Exception {
+                return getList(field, cs, path, 0);
+            }
+        });
+    }
+
+    /**
+     * Get the schema of this class, building and caching it the first time it is needed for each class.
+     *
+     * @return the schema of this class
+     */
+    private Schema getSchema() {
+        Schema schema = schemas.get(getClass());
+
+        if (schema == null) {
+            List<ConfigField> fields = new ArrayList<>();
+            for (Field field : getClass().getDeclaredFields()) {
+                if (!doSkip(field)) {
+                    fields.add(new ConfigField(field));
+                }
+            }
+
+            schema = new Schema(fields.toArray(new ConfigField[fields.size()]), overridesHooks(getClass()));
+            Schema existing = schemas.putIfAbsent(getClass(), schema);
+            if (existing != null) {
+                schema = existing;
             }
-        } else {
-            return obj;
         }
+
+        return schema;
+    }
+
+    /**
+     * Check if the provided class, or any of its superclasses below ConfigObject, overrides one of the protected hooks
+     * that the cached schema path does not call.
+     *
+     * @param clazz the class to be checked
+     * @return true if the class overrides at least one of the hooks
+     */
+    static boolean overridesHooks(Class<?> clazz) {
+        for (Class<?> current = clazz; current != null && current != ConfigObject.class; current = current.getSuperclass()) {
+            for (Object[] hook : HOOKS) {
+                Class<?>[] parameterTypes = new Class<?>[hook.length - 1];
+                System.arraycopy(hook, 1, parameterTypes, 0, parameterTypes.length);
+                try {
+                    Method method = current.getDeclaredMethod((String) hook[0], parameterTypes);
+                    if (!method.isBridge() && !method.isSynthetic()) {
+                        return true;
+                    }
+                } catch (NoSuchMethodException e) {
+                    // not overridden at this level
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the generated serializer for the class of this object.
+     *
+     * @return the generated serializer, or null if this class should be loaded and saved through reflection
+     */
+    @SuppressWarnings("unchecked")
+    private ConfigSerializer<ConfigObject> getSerializer() {
+        return (ConfigSerializer<ConfigObject>) ConfigSerializer.forClass(getClass());
     }
 
     /*
@@ -143,27 +377,7 @@ public abstract class ConfigObject {
     @SuppressWarnings("rawtypes")
     protected Class getClassAtDepth(Type type, int depth) throws Exception {
         if (depth <= 0) {
-            String className = type.toString();
-            if (className.length() >= 6 && className.substring(0, 6).equalsIgnoreCase("class ")) {
-                className = className.substring(6);
-            }
-            if (className.indexOf("<") >= 0) {
-                className = className.substring(0, className.indexOf("<"));
-            }
-            try {
-                return Class.forName(className);
-            } catch (ClassNotFoundException ex) {
-                // ugly fix for primitive data types
-                if (className.equalsIgnoreCase("byte")) return Byte.class;
-                if (className.equalsIgnoreCase("short")) return Short.class;
-                if (className.equalsIgnoreCase("int")) return Integer.class;
-                if (className.equalsIgnoreCase("long")) return Long.class;
-                if (className.equalsIgnoreCase("float")) return Float.class;
-                if (className.equalsIgnoreCase("double")) return Double.class;
-                if (className.equalsIgnoreCase("char")) return Character.class;
-                if (className.equalsIgnoreCase("boolean")) return Boolean.class;
-                throw ex;
-            }
+            return ConfigField.resolve(type);
         }
         depth--;
         ParameterizedType pType = (ParameterizedType) type;
@@ -200,6 +414,29 @@ public abstract class ConfigObject {
         }
     }
 
+    /**
+     * Check if the provided value looks like a stored JSON object, without parsing it.
+     *
+     * @param obj the value to be checked
+     * @return true if the value is a string starting with an opening brace
+     */
+    private boolean isJSONObject(Object obj) {
+        return obj instanceof String && ((String) obj).startsWith("{");
+    }
+
+    /**
+     * Parse a stored JSON object, using the fast path for the compact form written by this class and falling back to
+     * a full JSON parser for anything else, such as hand-edited values.
+     *
+     * @param json the JSON object to be parsed
+     * @return the keys and values of the object
+     * @throws Exception if the string is not a valid JSON object
+     */
+    private static Map<?, ?> parseJSON(String json) throws Exception {
+        Map<String, String> data = FlatJSON.parse(json);
+        return data != null ? data : (JSONObject) new JSONParser().parse(json);
+    }
+
     protected boolean isConfigObject(Object obj) {
         try {
             return (ConfigObject) obj != null;
@@ -260,12 +497,13 @@ public abstract class ConfigObject {
     @SuppressWarnings("rawtypes")
     protected ConfigObject getConfigObject(Class clazz, ConfigurationSection cs) throws Exception {
         ConfigObject obj = (ConfigObject) clazz.newInstance();
+        obj.lazy = lazy;
         obj.onLoad(cs);
         return obj;
     }
 
     protected Location getLocation(String json) throws Exception {
-        JSONObject data = (JSONObject) new JSONParser().parse(json);
+        Map<?, ?> data = parseJSON(json);
         // world
         World world = Bukkit.getWorld((String) data.get("world"));
         // x, y, z
@@ -283,7 +521,7 @@ public abstract class ConfigObject {
     }
 
     protected Vector getVector(String json) throws Exception {
-        JSONObject data = (JSONObject) new JSONParser().parse(json);
+        Map<?, ?> data = parseJSON(json);
         // x, y, z
         double x = Double.parseDouble((String) data.get("x"));
         double y = Double.parseDouble((String) data.get("y"));
@@ -296,13 +534,20 @@ public abstract class ConfigObject {
     protected Map getMap(Field field, ConfigurationSection cs, String path, int depth) throws Exception {
         depth++;
         Set<String> keys = cs.getKeys(false);
-        Map map = new HashMap();
-        if (keys != null && keys.size() > 0) {
-            for (String key : keys) {
-                Object in = cs.get(key);
-                in = loadObject(field, cs, key, depth);
-                map.put(key, in);
-            }
+        Map map = new LinkedHashMap(capacity(keys.size()));
+        for (String key : keys) {
+            map.put(key, loadObject(field, cs, key, depth));
+        }
+        return map;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Map getMap(ConfigField field, ConfigurationSection cs, String path, int depth) throws Exception {
+        depth++;
+        Map<String, Object> values = cs.getValues(false);
+        Map map = new LinkedHashMap(capacity(values.size()));
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            map.put(entry.getKey(), loadValue(field, entry.getValue(), entry.getKey(), depth));
         }
         return map;
     }
@@ -310,30 +555,92 @@ public abstract class ConfigObject {
     @SuppressWarnings({"rawtypes", "unchecked"})
     protected List getList(Field field, ConfigurationSection cs, String path, int depth) throws Exception {
         depth++;
-        int listSize = cs.getKeys(false).size();
-        String key = path;
-        if (key.lastIndexOf(".") >= 0) {
-            key = key.substring(key.lastIndexOf("."));
+        String prefix = path.substring(path.lastIndexOf('.') + 1);
+        TreeMap<Integer, Object> sorted = new TreeMap<>();
+        for (String key : cs.getKeys(false)) {
+            int index = getListIndex(key, prefix);
+            if (index >= 0) {
+                sorted.put(index, loadObject(field, cs, key, depth));
+            }
         }
-        List list = new ArrayList();
-        if (listSize > 0) {
-            int loaded = 0;
-            int i = 0;
-            while (loaded < listSize) {
-                if (cs.isSet(key + i)) {
-                    Object in = cs.get(key + i);
-                    in = loadObject(field, cs, key + i, depth);
-                    list.add(in);
-                    loaded++;
-                }
-                i++;
-                // ugly overflow guard... should only be needed if config was manually edited very badly
-                if (i > (listSize * 3)) loaded = listSize;
+        return new ArrayList(sorted.values());
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private List getList(ConfigField field, ConfigurationSection cs, String path, int depth) throws Exception {
+        depth++;
+        // elements are stored under the last part of the path followed by their index, ie. homes1, homes2, ...
+        String prefix = path.substring(path.lastIndexOf('.') + 1);
+        Map<String, Object> values = cs.getValues(false);
+        Object[] elements = new Object[values.size()];
+        int[] indices = new int[values.size()];
+        int count = 0;
+        boolean ordered = true;
+
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            int index = getListIndex(entry.getKey(), prefix);
+            if (index < 0) {
+                continue;
+            }
+            if (count > 0 && index < indices[count - 1]) {
+                ordered = false;
+            }
+            indices[count] = index;
+            elements[count++] = loadValue(field, entry.getValue(), entry.getKey(), depth);
+        }
+
+        List list = new ArrayList(count);
+        if (ordered) {
+            list.addAll(Arrays.asList(elements).subList(0, count));
+        } else {
+            // elements were stored out of order, so sort them by index
+            TreeMap<Integer, Object> sorted = new TreeMap<>();
+            for (int i = 0; i < count; i++) {
+                sorted.put(indices[i], elements[i]);
             }
+            list.addAll(sorted.values());
         }
         return list;
     }
 
+    /**
+     * Get the index of a stored list element from its key.
+     *
+     * @param key the key the element is stored under
+     * @param prefix the prefix of every element key in the list
+     * @return the index of the element, or -1 if the key is not an element key for this list
+     */
+    private static int getListIndex(String key, String prefix) {
+        int length = key.length();
+        int start = prefix.length();
+        if (length == start || length - start > 9 || !key.startsWith(prefix)) {
+            return -1;
+        }
+        if (key.charAt(start) == '0' && length - start > 1) {
+            return -1;
+        }
+
+        int index = 0;
+        for (int i = start; i < length; i++) {
+            int digit = key.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            index = index * 10 + digit;
+        }
+        return index;
+    }
+
+    /**
+     * Get the initial capacity a LinkedHashMap needs to hold the provided number of entries without resizing.
+     *
+     * @param size the number of entries
+     * @return the initial capacity
+     */
+    private static int capacity(int size) {
+        return size < 3 ? size + 1 : (int) (size / 0.75F) + 1;
+    }
+
     @SuppressWarnings("rawtypes")
     protected Enum getEnum(Class clazz, String string) throws Exception {
         if (!clazz.isEnum()) throw new Exception("Class " + clazz.getName() + " is not an enum.");
@@ -356,21 +663,14 @@ public abstract class ConfigObject {
     }
 
     protected String getLocation(Location loc) {
-        String ret = "{";
-        ret += "\"world\":\"" + loc.getWorld().getName() + "\"";
-        ret += ",\"x\":\"" + loc.getX() + "\"";
-        ret += ",\"y\":\"" + loc.getY() + "\"";
-        ret += ",\"z\":\"" + loc.getZ() + "\"";
-        ret += ",\"pitch\":\"" + loc.getPitch() + "\"";
-        ret += ",\"yaw\":\"" + loc.getYaw() + "\"";
-        ret += "}";
-        if (!isJSON(ret)) return getLocationJSON(loc);
-        try {
-            getLocation(ret);
-        } catch (Exception ex) {
-            return getLocationJSON(loc);
-        }
-        return ret;
+        StringBuilder ret = new StringBuilder(128).append("{\"world\":");
+        FlatJSON.appendString(ret, loc.getWorld().getName());
+        ret.append(",\"x\":\"").append(loc.getX());
+        ret.append("\",\"y\":\"").append(loc.getY());
+        ret.append("\",\"z\":\"").append(loc.getZ());
+        ret.append("\",\"pitch\":\"").append(loc.getPitch());
+        ret.append("\",\"yaw\":\"").append(loc.getYaw());
+        return ret.append("\"}").toString();
     }
 
     @SuppressWarnings("unchecked")
@@ -389,18 +689,11 @@ public abstract class ConfigObject {
     }
 
     protected String getVector(Vector vec) {
-        String ret = "{";
-        ret += "\"x\":\"" + vec.getX() + "\"";
-        ret += ",\"y\":\"" + vec.getY() + "\"";
-        ret += ",\"z\":\"" + vec.getZ() + "\"";
-        ret += "}";
-        if (!isJSON(ret)) return getVectorJSON(vec);
-        try {
-            getVector(ret);
-        } catch (Exception ex) {
-            return getVectorJSON(vec);
-        }
-        return ret;
+        StringBuilder ret = new StringBuilder(64);
+        ret.append("{\"x\":\"").append(vec.getX());
+        ret.append("\",\"y\":\"").append(vec.getY());
+        ret.append("\",\"z\":\"").append(vec.getZ());
+        return ret.append("\"}").toString();
     }
 
     @SuppressWarnings("unchecked")
@@ -415,6 +708,16 @@ public abstract class ConfigObject {
 
     @SuppressWarnings({"rawtypes", "unchecked"})
     protected ConfigurationSection getMap(Map map, Field field, ConfigurationSection cs, String path, int depth) throws Exception {
+        depth++;
+        ConfigurationSection subCS = cs.createSection(path);
+        for (String key : (Set<String>) map.keySet()) {
+            subCS.set(key, saveObject(map.get(key), field, cs, path + "." + key, depth));
+        }
+        return subCS;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private ConfigurationSection getMap(Map map, ConfigField field, ConfigurationSection cs, String path, int depth) throws Exception {
         depth++;
         ConfigurationSection subCS = cs.createSection(path);
         Set<String> keys = map.keySet();
@@ -430,6 +733,20 @@ public abstract class ConfigObject {
 
     @SuppressWarnings("rawtypes")
     protected ConfigurationSection getList(List list, Field field, ConfigurationSection cs, String path, int depth) throws Exception {
+        depth++;
+        ConfigurationSection subCS = cs.createSection(path);
+        String key = path;
+        if (key.lastIndexOf(".") >= 0) {
+            key = key.substring(key.lastIndexOf("."));
+        }
+        for (int i = 0; i < list.size(); i++) {
+            subCS.set(key + (i + 1), saveObject(list.get(i), field, cs, path + "." + key + (i + 1), depth));
+        }
+        return subCS;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private ConfigurationSection getList(List list, ConfigField field, ConfigurationSection cs, String path, int depth) throws Exception {
         depth++;
         ConfigurationSection subCS = cs.createSection(path);
         String key = path;
@@ -460,4 +777,17 @@ public abstract class ConfigObject {
                 || Modifier.isFinal(field.getModifiers()) || Modifier.isProtected(field.getModifiers())
                 || Modifier.isPrivate(field.getModifiers());
     }
-}
\ No newline at end of file
+
+    /**
+     * The cached description of how a ConfigObject class is loaded and saved.
+     */
+    private static class Schema {
+        private final ConfigField[] fields;
+        private final boolean overridesHooks;
+
+        private Schema(ConfigField[] fields, boolean overridesHooks) {
+            this.fields = fields;
+            this.overridesHooks = overridesHooks;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import org.bukkit.plugin.Plugin;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Watches the files of registered ConfigModels and reloads a model automatically when its file is changed by
+ * something other than the model itself, such as a server owner editing it by hand.
+ *
+ * Changes are debounced, so an editor writing a file in several steps only causes a single reload once the file has
+ * been quiet for the configured delay. Files are read and parsed on the config I/O thread, and the reloaded values
+ * are applied to the model, and the reload listener called, on the main thread of the owning plugin. Any unsaved
+ * changes to a model are replaced by the contents of its file when it is reloaded.
+ *
+ * A reload never writes to the file. If the file can not be parsed, for example because of a typo in a hand edit, the
+ * error is logged and both the model and the file are left as they were until the file is changed again.
+ */
+public class ConfigReloadService {
+    private static final long DEFAULT_DELAY = 500;
+
+    private final Plugin plugin;
+    private final long delay;
+    private final ConcurrentMap<Path, List<WatchedModel>> models = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Path, WatchKey> directories = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Create a new reload service with the default delay of 500 milliseconds.
+     *
+     * @param plugin the plugin that owns the models being watched
+     */
+    public ConfigReloadService(Plugin plugin) {
+        this(plugin, DEFAULT_DELAY);
+    }
+
+    /**
+     * Create a new reload service.
+     *
+     * @param plugin the plugin that owns the models being watched
+     * @param delay the time a file must go without changes before it is reloaded, in milliseconds
+     */
+    public ConfigReloadService(Plugin plugin, long delay) {
+        this.plugin = Preconditions.checkNotNull(plugin, "Plugin must not be null!");
+        Preconditions.checkArgument(delay >= 0, "Delay must not be negative!");
+        this.delay = delay;
+    }
+
+    /**
+     * Start watching for changes to the files of registered models.
+     *
+     * @throws IOException if the file system can not be watched
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            return;
+        }
+
+        watchService = FileSystems.getDefault().newWatchService();
+        directories.clear();
+        for (Path file : models.keySet()) {
+            register(file.getParent());
+        }
+
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        }, "StilesLib Config Watcher (" + plugin.getName() + ")");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop watching for changes. This should be called when the plugin owning this service is disabled.
+     */
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        thread.interrupt();
+        thread = null;
+        watchService = null;
+    }
+
+    /**
+     * Reload the provided model whenever its file is changed.
+     *
+     * @param model the model to be watched, which must already have a file
+     * @throws IOException if the directory holding the file of the model can not be watched
+     */
+    public void watch(ConfigModel model) throws IOException {
+        watch(model, null);
+    }
+
+    /**
+     * Reload the provided model whenever its file is changed, and notify the provided listener after each reload.
+     *
+     * @param model the model to be watched, which must already have a file
+     * @param listener the listener to be notified after each reload, or null for no listener
+     * @throws IOException if the directory holding the file of the model can not be watched
+     */
+    public synchronized void watch(ConfigModel model, ReloadListener listener) throws IOException {
+        Preconditions.checkNotNull(model, "Model must not be null!");
+        Preconditions.checkNotNull(model.CONFIG_FILE, "Model file must not be null!");
+
+        Path file = getPath(model);
+        List<WatchedModel> watched = models.get(file);
+        if (watched == null) {
+            watched = new CopyOnWriteArrayList<>();
+            models.put(file, watched);
+        }
+        watched.add(new WatchedModel(model, listener));
+
+        if (watchService != null) {
+            register(file.getParent());
+        }
+    }
+
+    /**
+     * Stop reloading the provided model when its file is changed.
+     *
+     * @param model the model to stop watching
+     */
+    public synchronized void unwatch(ConfigModel model) {
+        for (Iterator<Map.Entry<Path, List<WatchedModel>>> it = models.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, List<WatchedModel>> entry = it.next();
+            for (WatchedModel watched : entry.getValue()) {
+                if (watched.model == model) {
+                    entry.getValue().remove(watched);
+                }
+            }
+
+            if (entry.getValue().isEmpty()) {
+                it.remove();
+                unregisterIfUnused(entry.getKey().getParent());
+            }
+        }
+    }
+
+    /**
+     * Register a directory with the watch service, unless it is already registered.
+     *
+     * @param directory the directory to be registered
+     * @throws IOException if the directory can not be watched
+     */
+    private void register(Path directory) throws IOException {
+        if (!directories.containsKey(directory)) {
+            directories.put(directory, directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY));
+        }
+    }
+
+    /**
+     * Stop watching a directory if no watched models are stored in it any more.
+     *
+     * @param directory the directory to be checked
+     */
+    private void unregisterIfUnused(Path directory) {
+        for (Path file : models.keySet()) {
+            if (file.getParent().equals(directory)) {
+                return;
+            }
+        }
+
+        WatchKey key = directories.remove(directory);
+        if (key != null) {
+            key.cancel();
+        }
+    }
+
+    /**
+     * The main loop of the watcher thread, which collects change events and reloads each changed file once it has
+     * been quiet for the configured delay.
+     */
+    private void watch() {
+        WatchService service;
+        synchronized (this) {
+            service = watchService;
+        }
+
+        Map<Path, Long> pending = new HashMap<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key;
+                if (pending.isEmpty()) {
+                    key = service.take();
+                } else {
+                    long wait = Long.MAX_VALUE;
+                    for (long deadline : pending.values()) {
+                        wait = Math.min(wait, deadline - System.currentTimeMillis());
+                    }
+                    key = service.poll(Math.max(wait, 0), TimeUnit.MILLISECONDS);
+                }
+
+                if (key != null) {
+                    collectChanges(key, pending);
+                }
+
+                long now = System.currentTimeMillis();
+                for (Iterator<Map.Entry<Path, Long>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<Path, Long> entry = it.next();
+                    if (entry.getValue() <= now) {
+                        it.remove();
+                        reload(entry.getKey());
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // the service has been stopped
+        }
+    }
+
+    /**
+     * Record the watched files changed by the events of a watch key, pushing back the time they will be reloaded.
+     *
+     * @param key the key holding the events
+     * @param pending the times each changed file should be reloaded at
+     */
+    private void collectChanges(WatchKey key, Map<Path, Long> pending) {
+        Path directory = (Path) key.watchable();
+        long deadline = System.currentTimeMillis() + delay;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // events were lost, so check every watched file in the directory
+                for (Path file : models.keySet()) {
+                    if (file.getParent().equals(directory)) {
+                        pending.put(file, deadline);
+                    }
+                }
+            } else {
+                Path file = directory.resolve((Path) event.context());
+                if (models.containsKey(file)) {
+                    pending.put(file, deadline);
+                }
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * Reload every model stored in the provided file that did not make the latest change to it itself.
+     *
+     * @param file the file that changed
+     */
+    private void reload(final Path file) {
+        List<WatchedModel> watched = models.get(file);
+        if (watched == null) {
+            return;
+        }
+
+        for (final WatchedModel entry : watched) {
+            if (!entry.model.isFileChanged()) {
+                continue;
+            }
+
+            Futures.addCallback(entry.model.reloadAsync(plugin, false), new FutureCallback<ConfigModel>() {
+                @Override
+                public void onSuccess(ConfigModel result) {
+                    if (entry.listener != null) {
+                        entry.listener.onReload(result);
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    plugin.getLogger().log(Level.WARNING, "Unable to reload " + file + ", keeping the current values", t);
+                }
+            }, ConfigExecutors.callbacks(plugin));
+        }
+    }
+
+    /**
+     * Get the normalized absolute path of the file of a model.
+     *
+     * @param model the model
+     * @return the path of its file
+     */
+    private static Path getPath(ConfigModel model) {
+        return model.CONFIG_FILE.toPath().toAbsolutePath().normalize();
+    }
+
+    /**
+     * A listener notified after a watched model has been reloaded because its file changed.
+     */
+    public interface ReloadListener {
+
+        /**
+         * Called on the main thread after a model has been reloaded.
+         *
+         * @param model the model that was reloaded
+         */
+        void onReload(ConfigModel model);
+    }
+
+    /**
+     * A model being watched along with its listener.
+     */
+    private static class WatchedModel {
+        private final ConfigModel model;
+        private final ReloadListener listener;
+
+        private WatchedModel(ConfigModel model, ReloadListener listener) {
+            this.model = model;
+            this.listener = listener;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A serializer that loads and saves the fields of one ConfigObject class with plain field accesses instead of
+ * reflection.
+ *
+ * Serializers are generated at compile time by the StilesLib-processor annotation processor, which emits a class named
+ * after the binary name of each eligible ConfigObject subclass followed by "_ConfigSerializer". When such a class is
+ * present, ConfigObject uses it to load and save objects of that exact class, and falls back to reflection otherwise.
+ * Fields holding nested objects, locations, vectors, enums, maps or lists are still converted by ConfigObject, and
+ * only those fields are looked up through reflection, the first time one of them is used.
+ *
+ * @param <T> the class of object handled by this serializer
+ */
+public abstract class ConfigSerializer<T extends ConfigObject> {
+    private static final String SUFFIX = "_ConfigSerializer";
+    private static final ConcurrentMap<Class<?>, Optional<ConfigSerializer<?>>> serializers = new ConcurrentHashMap<>();
+
+    private final Class<T> type;
+    private final String[] fieldNames;
+    private volatile ConfigField[] fields;
+
+    /**
+     * Create a serializer for the provided class.
+     *
+     * @param type the class of object handled by this serializer
+     * @param fieldNames the names of the fields converted through ConfigObject, in the order of the indexes used to
+     *                   refer to them
+     */
+    protected ConfigSerializer(Class<T> type, String... fieldNames) {
+        Preconditions.checkNotNull(type, "Type must not be null!");
+        Preconditions.checkNotNull(fieldNames, "Field names must not be null!");
+
+        this.type = type;
+        this.fieldNames = fieldNames;
+    }
+
+    /**
+     * Get the class of object handled by this serializer.
+     *
+     * @return the class handled by this serializer
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Load the fields of the provided object from the provided section. Any field whose path is not set in the section
+     * is saved to it instead.
+     *
+     * @param object the object to be loaded
+     * @param cs the section to load the object from
+     * @throws Exception if any field could not be loaded
+     */
+    public abstract void load(T object, ConfigurationSection cs) throws Exception;
+
+    /**
+     * Save the fields of the provided object to the provided section.
+     *
+     * @param object the object to be saved
+     * @param cs the section to save the object to
+     * @throws Exception if any field could not be saved
+     */
+    public abstract void save(T object, ConfigurationSection cs) throws Exception;
+
+    /**
+     * Load the value of a field that is converted through ConfigObject.
+     *
+     * @param object the object being loaded
+     * @param field the index of the field in the names passed to the constructor
+     * @param cs the section being loaded from
+     * @param path the path of the field
+     * @return the loaded value of the field
+     * @throws Exception if the value could not be loaded
+     */
+    protected final Object loadValue(T object, int field, ConfigurationSection cs, String path) throws Exception {
+        return object.loadObject(getField(field), cs, path, 0);
+    }
+
+    /**
+     * Convert the value of a field that is converted through ConfigObject to its saved form.
+     *
+     * @param object the object being saved
+     * @param field the index of the field in the names passed to the constructor
+     * @param value the current value of the field
+     * @param cs the section being saved to
+     * @param path the path of the field
+     * @return the value to be stored in the section
+     * @throws Exception if the value could not be saved
+     */
+    protected final Object saveValue(T object, int field, Object value, ConfigurationSection cs, String path) throws Exception {
+        return object.saveObject(value, getField(field), cs, path, 0);
+    }
+
+    /**
+     * Convert a loaded value to a byte, if it is a whole number within the range of a byte.
+     *
+     * @param value the loaded value
+     * @return the value as a byte
+     * @throws IllegalArgumentException if the value is not a whole number or is out of range
+     */
+    protected static byte toByte(Object value) {
+        return ConfigField.toByte(value);
+    }
+
+    /**
+     * Convert a loaded value to a short, if it is a whole number within the range of a short.
+     *
+     * @param value the loaded value
+     * @return the value as a short
+     * @throws IllegalArgumentException if the value is not a whole number or is out of range
+     */
+    protected static short toShort(Object value) {
+        return ConfigField.toShort(value);
+    }
+
+    /**
+     * Convert a loaded value to an int, if it is a whole number within the range of an int.
+     *
+     * @param value the loaded value
+     * @return the value as an int
+     * @throws IllegalArgumentException if the value is not a whole number or is out of range
+     */
+    protected static int toInt(Object value) {
+        return ConfigField.toInt(value);
+    }
+
+    /**
+     * Convert a loaded value to a long, if it is a whole number within the range of a long.
+     *
+     * @param value the loaded value
+     * @return the value as a long
+     * @throws IllegalArgumentException if the value is not a whole number or is out of range
+     */
+    protected static long toLong(Object value) {
+        return ConfigField.toLong(value);
+    }
+
+    /**
+     * Convert a loaded value to a float, accepting doubles as YAML loads every decimal number as a Double.
+     *
+     * @param value the loaded value
+     * @return the value as a float
+     * @throws IllegalArgumentException if the value is not a number
+     */
+    protected static float toFloat(Object value) {
+        return ConfigField.toFloat(value);
+    }
+
+    /**
+     * Convert a loaded value to a double.
+     *
+     * @param value the loaded value
+     * @return the value as a double
+     * @throws IllegalArgumentException if the value is not a number
+     */
+    protected static double toDouble(Object value) {
+        return ConfigField.toDouble(value);
+    }
+
+    /**
+     * Convert a loaded value to a char, accepting a single character string as YAML stores chars that way.
+     *
+     * @param value the loaded value
+     * @return the value as a char
+     */
+    protected static char toChar(Object value) {
+        return ConfigField.toChar(value);
+    }
+
+    /**
+     * Get the description of a field converted through ConfigObject, resolving every such field the first time one
+     * of them is needed.
+     *
+     * @param index the index of the field
+     * @return the description of the field
+     * @throws Exception if the field does not exist
+     */
+    private ConfigField getField(int index) throws Exception {
+        ConfigField[] result = fields;
+        if (result == null) {
+            result = new ConfigField[fieldNames.length];
+            for (int i = 0; i < fieldNames.length; i++) {
+                result[i] = new ConfigField(type.getDeclaredField(fieldNames[i]));
+            }
+            fields = result;
+        }
+        return result[index];
+    }
+
+    /**
+     * Find the generated serializer for the provided class, caching the result of the lookup.
+     *
+     * @param clazz the class to find the serializer for
+     * @param <T> the class to find the serializer for
+     * @return the serializer for the class, or null if none was generated for it
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends ConfigObject> ConfigSerializer<T> forClass(Class<T> clazz) {
+        Optional<ConfigSerializer<?>> serializer = serializers.get(clazz);
+
+        if (serializer == null) {
+            serializer = Optional.<ConfigSerializer<?>>fromNullable(find(clazz));
+            serializers.putIfAbsent(clazz, serializer);
+        }
+
+        return (ConfigSerializer<T>) serializer.orNull();
+    }
+
+    /**
+     * Load and create the generated serializer for the provided class.
+     *
+     * @param clazz the class to find the serializer for
+     * @return the serializer for the class, or null if none was generated for it or it could not be created
+     */
+    private static ConfigSerializer<?> find(Class<?> clazz) {
+        Class<?> serializerClass;
+        try {
+            serializerClass = Class.forName(clazz.getName() + SUFFIX, true, clazz.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+
+        if (!ConfigSerializer.class.isAssignableFrom(serializerClass)) {
+            return null;
+        }
+
+        try {
+            Constructor<?> constructor = serializerClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            ConfigSerializer<?> serializer = (ConfigSerializer<?>) constructor.newInstance();
+            return serializer.getType() == clazz ? serializer : null;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
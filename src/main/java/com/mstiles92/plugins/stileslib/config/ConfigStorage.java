@@ -0,0 +1,67 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import org.bukkit.configuration.Configuration;
+import org.bukkit.configuration.InvalidConfigurationException;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A file format that a ConfigModel can be stored in.
+ */
+public interface ConfigStorage {
+    /**
+     * The default storage format, which stores models as human-editable YAML.
+     */
+    ConfigStorage YAML = new YamlConfigStorage();
+
+    /**
+     * A compact binary storage format, which is much faster to load than YAML but can not be edited by hand.
+     */
+    ConfigStorage BINARY = new BinaryConfigStorage();
+
+    /**
+     * Create a new, empty configuration to be stored in this format.
+     *
+     * @param header the header to be written at the top of the file, or null for no header
+     * @return the new configuration
+     */
+    Configuration create(String header);
+
+    /**
+     * Read a configuration from the provided file.
+     *
+     * @param file the file to be read
+     * @return the configuration read from the file
+     * @throws IOException if the file could not be read
+     * @throws InvalidConfigurationException if the contents of the file are not valid for this format
+     */
+    Configuration read(File file) throws IOException, InvalidConfigurationException;
+
+    /**
+     * Write a configuration to the provided file, replacing any existing contents.
+     *
+     * @param config the configuration to be written
+     * @param file the file to be written to
+     * @throws IOException if the file could not be written
+     */
+    void write(Configuration config, File file) throws IOException;
+}
@@ -0,0 +1,166 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes the flat JSON objects of string values that ConfigObject uses to store Locations and Vectors,
+ * without going through a general purpose JSON parser.
+ */
+final class FlatJSON {
+
+    private FlatJSON() {}
+
+    /**
+     * Parse a JSON object whose values are all strings, such as {"x":"1.0","y":"2.0"}. Only the compact form written
+     * by {@link #appendString(StringBuilder, String)} is accepted, without any whitespace between tokens.
+     *
+     * @param json the JSON object to be parsed
+     * @return the keys and values of the object, or null if the string is not a flat object in the compact form
+     */
+    static Map<String, String> parse(String json) {
+        int length = json.length();
+        if (length < 2 || json.charAt(0) != '{') {
+            return null;
+        }
+
+        Map<String, String> values = new HashMap<>();
+        if (json.charAt(1) == '}') {
+            return length == 2 ? values : null;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        int i = 1;
+        while (true) {
+            i = readString(json, i, builder);
+            if (i < 0 || i >= length || json.charAt(i) != ':') {
+                return null;
+            }
+            String key = builder.toString();
+
+            i = readString(json, i + 1, builder);
+            if (i < 0 || i >= length) {
+                return null;
+            }
+            values.put(key, builder.toString());
+
+            char c = json.charAt(i++);
+            if (c == '}') {
+                return i == length ? values : null;
+            } else if (c != ',') {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Append a string to the provided builder as a quoted JSON string, escaping only the characters JSON requires.
+     *
+     * @param builder the builder to append to
+     * @param value the string to be appended
+     * @return the provided builder
+     */
+    static StringBuilder appendString(StringBuilder builder, String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"');
+    }
+
+    /**
+     * Read a quoted JSON string starting at the provided index.
+     *
+     * @param json the string being parsed
+     * @param start the index of the opening quote
+     * @param builder the builder the unescaped contents of the string are stored in, replacing its current contents
+     * @return the index after the closing quote, or -1 if there is no valid string at the provided index
+     */
+    private static int readString(String json, int start, StringBuilder builder) {
+        int length = json.length();
+        if (start >= length || json.charAt(start) != '"') {
+            return -1;
+        }
+
+        builder.setLength(0);
+        for (int i = start + 1; i < length; i++) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                return i + 1;
+            } else if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+
+            if (++i >= length) {
+                return -1;
+            }
+
+            switch (json.charAt(i)) {
+                case '"':
+                case '\\':
+                case '/':
+                    builder.append(json.charAt(i));
+                    break;
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 >= length) {
+                        return -1;
+                    }
+                    int code = 0;
+                    for (int j = i + 1; j <= i + 4; j++) {
+                        int digit = Character.digit(json.charAt(j), 16);
+                        if (digit < 0) {
+                            return -1;
+                        }
+                        code = (code << 4) | digit;
+                    }
+                    builder.append((char) code);
+                    i += 4;
+                    break;
+                default:
+                    return -1;
+            }
+        }
+        return -1;
+    }
+}
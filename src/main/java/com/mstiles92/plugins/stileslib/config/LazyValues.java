@@ -0,0 +1,152 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import com.google.common.collect.ForwardingList;
+import com.google.common.collect.ForwardingMap;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Map and List implementations used for lazily loaded ConfigObject fields, which hold on to the section they were
+ * stored in and only decode it the first time they are accessed. The section is released once it has been decoded.
+ */
+final class LazyValues {
+
+    private LazyValues() {}
+
+    /**
+     * A value that is decoded from a configuration section on first access.
+     */
+    interface Lazy {
+
+        /**
+         * Check if this value has been decoded yet.
+         *
+         * @return true if this value has been decoded
+         */
+        boolean isLoaded();
+
+        /**
+         * Get the section this value will be decoded from, if it has not been decoded yet.
+         *
+         * @return the section holding the encoded value, or null if the value has already been decoded
+         */
+        ConfigurationSection getSource();
+    }
+
+    /**
+     * A map that is decoded from a configuration section on first access.
+     */
+    static class LazyMap extends ForwardingMap<Object, Object> implements Lazy {
+        private volatile ConfigurationSection source;
+        private Callable<Map<Object, Object>> loader;
+        private volatile Map<Object, Object> delegate;
+
+        LazyMap(ConfigurationSection source, Callable<Map<Object, Object>> loader) {
+            this.source = source;
+            this.loader = loader;
+        }
+
+        @Override
+        protected Map<Object, Object> delegate() {
+            Map<Object, Object> map = delegate;
+            if (map == null) {
+                synchronized (this) {
+                    map = delegate;
+                    if (map == null) {
+                        delegate = map = load(loader);
+                        loader = null;
+                        source = null;
+                    }
+                }
+            }
+            return map;
+        }
+
+        @Override
+        public boolean isLoaded() {
+            return delegate != null;
+        }
+
+        @Override
+        public ConfigurationSection getSource() {
+            return source;
+        }
+    }
+
+    /**
+     * A list that is decoded from a configuration section on first access.
+     */
+    static class LazyList extends ForwardingList<Object> implements Lazy {
+        private volatile ConfigurationSection source;
+        private Callable<List<Object>> loader;
+        private volatile List<Object> delegate;
+
+        LazyList(ConfigurationSection source, Callable<List<Object>> loader) {
+            this.source = source;
+            this.loader = loader;
+        }
+
+        @Override
+        protected List<Object> delegate() {
+            List<Object> list = delegate;
+            if (list == null) {
+                synchronized (this) {
+                    list = delegate;
+                    if (list == null) {
+                        delegate = list = load(loader);
+                        loader = null;
+                        source = null;
+                    }
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public boolean isLoaded() {
+            return delegate != null;
+        }
+
+        @Override
+        public ConfigurationSection getSource() {
+            return source;
+        }
+    }
+
+    /**
+     * Run the loader for a lazy value.
+     *
+     * @param loader the loader to be run
+     * @param <T> the type of the loaded value
+     * @return the loaded value
+     * @throws IllegalStateException if the value could not be decoded
+     */
+    private static <T> T load(Callable<T> loader) {
+        try {
+            return loader.call();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to load lazy config value", e);
+        }
+    }
+}
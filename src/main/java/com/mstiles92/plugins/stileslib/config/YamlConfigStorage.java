@@ -0,0 +1,60 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import org.bukkit.configuration.Configuration;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Stores configurations as YAML through Bukkit's YamlConfiguration.
+ */
+class YamlConfigStorage implements ConfigStorage {
+
+    @Override
+    public Configuration create(String header) {
+        YamlConfiguration yamlConfig = new YamlConfiguration();
+        if (header != null) {
+            yamlConfig.options().header(header);
+        }
+        return yamlConfig;
+    }
+
+    @Override
+    public Configuration read(File file) throws IOException, InvalidConfigurationException {
+        YamlConfiguration yamlConfig = new YamlConfiguration();
+        yamlConfig.load(file);
+        return yamlConfig;
+    }
+
+    @Override
+    public void write(Configuration config, File file) throws IOException {
+        YamlConfiguration yamlConfig;
+        if (config instanceof YamlConfiguration) {
+            yamlConfig = (YamlConfiguration) config;
+        } else {
+            yamlConfig = new YamlConfiguration();
+            ConfigFiles.copy(config, yamlConfig);
+        }
+        yamlConfig.save(file);
+    }
+}
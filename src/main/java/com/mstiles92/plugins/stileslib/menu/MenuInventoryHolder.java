@@ -21,6 +21,7 @@ package com.mstiles92.plugins.stileslib.menu;
 import com.mstiles92.plugins.stileslib.menu.menus.Menu;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
 
 /**
  * An InventoryHolder used to hold a Menu along with its Inventory representation that will be displayed to the player.
@@ -28,6 +29,7 @@ import org.bukkit.inventory.InventoryHolder;
 public class MenuInventoryHolder implements InventoryHolder {
     private Menu menu;
     private Inventory inventory;
+    private ItemStack[] renderedIcons;
 
     /**
      * Create an instance of MenuInventoryHolder to hold both a Menu and its Inventory representation.
@@ -38,6 +40,7 @@ public class MenuInventoryHolder implements InventoryHolder {
     public MenuInventoryHolder(Menu menu, Inventory inventory) {
         this.menu = menu;
         this.inventory = inventory;
+        this.renderedIcons = new ItemStack[inventory.getSize()];
     }
 
     /**
@@ -58,4 +61,15 @@ public class MenuInventoryHolder implements InventoryHolder {
     public Inventory getInventory() {
         return inventory;
     }
+
+    /**
+     * Get the icons that were last rendered into the open Inventory of the Player viewing the held Menu, indexed by
+     * slot. A slot that was left empty holds null. Since each Player is shown their own Inventory with its own holder,
+     * these icons always belong to a single viewer and are discarded along with the Inventory when it is closed.
+     *
+     * @return the last rendered icon of every slot
+     */
+    public ItemStack[] getRenderedIcons() {
+        return renderedIcons;
+    }
 }
@@ -19,27 +19,49 @@
 package com.mstiles92.plugins.stileslib.menu;
 
 import com.google.common.base.Preconditions;
-import org.bukkit.Bukkit;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
+import com.mstiles92.plugins.stileslib.menu.menus.Menu;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryOpenEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.server.PluginDisableEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.RegisteredListener;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The Listener that handles InventoryClickEvents for the menu system, passing on the events to the corresponding Menu.
  * Implemented as a Singleton, as only one instance of this listener ever needs to be registered.
+ * <br>
+ * The listener also keeps a registry of every open Menu, indexed by the Player viewing it, by the Menu itself and by
+ * the Plugin that created the Menu, which is kept up to date as Menus are opened and closed and as Players leave.
+ * <br>
+ * Registering and unregistering Plugins may be done from any thread. Everything else must be done on the main thread.
  */
 public class MenuListener implements Listener {
     private static MenuListener instance = new MenuListener();
-    private List<Plugin> registeredPlugins = new ArrayList<>();
+    private final Set<Plugin> registeredPlugins = Collections.newSetFromMap(new ConcurrentHashMap<Plugin, Boolean>());
+    private final Map<UUID, OpenMenu> openMenus = new HashMap<>();
+    private final SetMultimap<Menu, UUID> viewersByMenu = HashMultimap.create();
+    private final SetMultimap<Plugin, UUID> viewersByPlugin = HashMultimap.create();
 
     /**
      * Private constructor to enforce the singleton pattern.
@@ -57,21 +79,43 @@ public class MenuListener implements Listener {
     }
 
     /**
-     * Register this Listener with the specified Plugin to catch events for the menu system.
+     * Register this Listener with the specified Plugin to catch events for the menu system. Registering with a Plugin
+     * this Listener is already registered with has no effect. This may be called from any thread.
      *
      * @param plugin the Plugin for which this Listener should be registered
      */
     public void register(Plugin plugin) {
         Preconditions.checkNotNull(plugin, "Plugin must not be null when registering MenuListener!");
 
-        if (!isRegistered(plugin)) {
-            registeredPlugins.add(plugin);
+        if (registeredPlugins.add(plugin)) {
             plugin.getServer().getPluginManager().registerEvents(this, plugin);
         }
     }
 
     /**
-     * Check if this Listener is registered with the specified Plugin.
+     * Unregister this Listener from the specified Plugin, so that it no longer catches events through that Plugin.
+     * Unregistering from a Plugin this Listener is not registered with has no effect. This may be called from any
+     * thread.
+     *
+     * @param plugin the Plugin from which this Listener should be unregistered
+     */
+    public void unregister(Plugin plugin) {
+        Preconditions.checkNotNull(plugin, "Plugin must not be null when unregistering MenuListener!");
+
+        if (registeredPlugins.remove(plugin)) {
+            for (HandlerList handlers : HandlerList.getHandlerLists()) {
+                for (RegisteredListener registered : handlers.getRegisteredListeners()) {
+                    if (registered.getListener() == this && registered.getPlugin().equals(plugin)) {
+                        handlers.unregister(registered);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if this Listener is registered with the specified Plugin. The Listener is unregistered automatically when
+     * the Plugin is disabled. This may be called from any thread.
      *
      * @param plugin the Plugin to be checked
      * @return true if the Listener is registered with the Plugin, false if it is not
@@ -79,29 +123,52 @@ public class MenuListener implements Listener {
     public boolean isRegistered(Plugin plugin) {
         Preconditions.checkNotNull(plugin, "Plugin must not be null when checking if MenuListener is registered!");
 
-        if (registeredPlugins.contains(plugin)) {
-            for (RegisteredListener registeredListener : HandlerList.getRegisteredListeners(plugin)) {
-                if (registeredListener.getListener().equals(this)) {
-                    return true;
-                }
-            }
-        }
+        return registeredPlugins.contains(plugin);
+    }
+
+    /**
+     * Get the Menu the specified Player currently has open.
+     *
+     * @param player the Player to check
+     * @return the open Menu, or null if the Player does not have a Menu open
+     */
+    public Menu getOpenMenu(Player player) {
+        Preconditions.checkNotNull(player, "Player must not be null!");
+
+        OpenMenu openMenu = openMenus.get(player.getUniqueId());
+        return openMenu == null ? null : openMenu.menu;
+    }
+
+    /**
+     * Get every Player who currently has the specified Menu open.
+     *
+     * @param menu the Menu to check
+     * @return the Players viewing the Menu
+     */
+    public List<Player> getViewers(Menu menu) {
+        Preconditions.checkNotNull(menu, "Menu must not be null!");
+
+        return getPlayers(viewersByMenu.get(menu));
+    }
+
+    /**
+     * Get every Player who currently has a Menu created by the specified Plugin open.
+     *
+     * @param plugin the Plugin to check
+     * @return the Players viewing a Menu of the Plugin
+     */
+    public List<Player> getViewers(Plugin plugin) {
+        Preconditions.checkNotNull(plugin, "Plugin must not be null!");
 
-        return false;
+        return getPlayers(viewersByPlugin.get(plugin));
     }
 
     /**
      * Close every open Inventory that is a representation of a Menu.
      */
     public static void closeAllMenus() {
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            if (player.getOpenInventory() != null) {
-                Inventory inventory = player.getOpenInventory().getTopInventory();
-
-                if (inventory != null && inventory.getHolder() instanceof MenuInventoryHolder) {
-                    player.closeInventory();
-                }
-            }
+        for (Player player : instance.getPlayers(instance.openMenus.keySet())) {
+            player.closeInventory();
         }
     }
 
@@ -111,17 +178,55 @@ public class MenuListener implements Listener {
      * @param plugin the Plugin for which to close all menus
      */
     public static void closeAllMenus(Plugin plugin) {
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            if (player.getOpenInventory() != null) {
-                Inventory inventory = player.getOpenInventory().getTopInventory();
+        for (Player player : instance.getViewers(plugin)) {
+            player.closeInventory();
+        }
+    }
 
-                if (inventory != null && inventory.getHolder() instanceof MenuInventoryHolder) {
-                    if (((MenuInventoryHolder) inventory.getHolder()).getMenu().getPlugin().equals(plugin)) {
-                        player.closeInventory();
-                    }
-                }
-            }
+    /**
+     * Get the Players with an open Menu among the specified Players.
+     *
+     * @param uuids the UUIDs of the Players
+     * @return a new list of the Players
+     */
+    private List<Player> getPlayers(Collection<UUID> uuids) {
+        List<Player> players = new ArrayList<>(uuids.size());
+        for (UUID uuid : uuids) {
+            players.add(openMenus.get(uuid).player);
+        }
+        return players;
+    }
+
+    /**
+     * Record that the specified Player has opened a Menu, replacing any Menu they were recorded as viewing before.
+     *
+     * @param player the Player who opened the Menu
+     * @param menu the Menu that was opened
+     * @param inventory the Inventory the Menu was opened in
+     */
+    private void track(Player player, Menu menu, Inventory inventory) {
+        untrack(player.getUniqueId());
+
+        openMenus.put(player.getUniqueId(), new OpenMenu(player, menu, inventory));
+        viewersByMenu.put(menu, player.getUniqueId());
+        viewersByPlugin.put(menu.getPlugin(), player.getUniqueId());
+    }
+
+    /**
+     * Remove the Menu the specified Player was viewing from the registry.
+     *
+     * @param uuid the UUID of the Player
+     * @return the removed entry, or null if the Player was not viewing a Menu
+     */
+    private OpenMenu untrack(UUID uuid) {
+        OpenMenu openMenu = openMenus.remove(uuid);
+
+        if (openMenu != null) {
+            viewersByMenu.remove(openMenu.menu, uuid);
+            viewersByPlugin.remove(openMenu.menu.getPlugin(), uuid);
         }
+
+        return openMenu;
     }
 
     /**
@@ -131,9 +236,8 @@ public class MenuListener implements Listener {
      */
     @EventHandler
     public void onPluginDisable(PluginDisableEvent event) {
-        if (registeredPlugins.contains(event.getPlugin())) {
+        if (registeredPlugins.remove(event.getPlugin())) {
             closeAllMenus(event.getPlugin());
-            registeredPlugins.remove(event.getPlugin());
         }
     }
 
@@ -149,4 +253,79 @@ public class MenuListener implements Listener {
             ((MenuInventoryHolder) event.getInventory().getHolder()).getMenu().handleClick(event);
         }
     }
+
+    /**
+     * Handle the InventoryOpenEvent, recording the Menu that was opened in the registry of open Menus.
+     *
+     * @param event the InventoryOpenEvent that was fired as a result of a Player opening an Inventory.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryOpen(InventoryOpenEvent event) {
+        if (event.getInventory().getHolder() instanceof MenuInventoryHolder && event.getPlayer() instanceof Player) {
+            track((Player) event.getPlayer(), ((MenuInventoryHolder) event.getInventory().getHolder()).getMenu(), event.getInventory());
+        }
+    }
+
+    /**
+     * Handle the InventoryCloseEvent, removing the closed Menu from the registry of open Menus and letting it end the
+     * session of the Player who closed it. This is also fired for a Player's open Inventory when they leave the server.
+     *
+     * @param event the InventoryCloseEvent that was fired as a result of a Player closing an Inventory.
+     */
+    @EventHandler
+    public void onInventoryClose(InventoryCloseEvent event) {
+        if (event.getInventory().getHolder() instanceof MenuInventoryHolder && event.getPlayer() instanceof Player) {
+            Player player = (Player) event.getPlayer();
+
+            OpenMenu openMenu = openMenus.get(player.getUniqueId());
+            if (openMenu != null && openMenu.inventory == event.getInventory()) {
+                untrack(player.getUniqueId());
+            }
+
+            ((MenuInventoryHolder) event.getInventory().getHolder()).getMenu().handleClose(player, event.getInventory());
+        }
+    }
+
+    /**
+     * Handle the PlayerQuitEvent, making sure the Player is removed from the registry of open Menus.
+     *
+     * @param event the PlayerQuitEvent that was fired as a result of a Player leaving the server.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        untrack(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Handle the InventoryDragEvent, preventing items from being dragged into a Menu's Inventory so that its contents
+     * always match the icons that were rendered into it.
+     *
+     * @param event the InventoryDragEvent that was fired as a result of a Player dragging items across an Inventory.
+     */
+    @EventHandler(ignoreCancelled = true)
+    public void onInventoryDrag(InventoryDragEvent event) {
+        if (event.getInventory().getHolder() instanceof MenuInventoryHolder) {
+            for (int slot : event.getRawSlots()) {
+                if (slot < event.getInventory().getSize()) {
+                    event.setCancelled(true);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * An entry in the registry of open Menus.
+     */
+    private static class OpenMenu {
+        private final Player player;
+        private final Menu menu;
+        private final Inventory inventory;
+
+        private OpenMenu(Player player, Menu menu, Inventory inventory) {
+            this.player = player;
+            this.menu = menu;
+            this.inventory = inventory;
+        }
+    }
 }
@@ -0,0 +1,296 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.menu.items;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mstiles92.plugins.stileslib.menu.MenuListener;
+import com.mstiles92.plugins.stileslib.menu.menus.Menu;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A MenuItem whose display icon is expensive to create, such as one showing the results of a database lookup.
+ * <br>
+ * The display icon is computed for each Player on a shared pool of worker threads, while a placeholder icon is shown
+ * in its place. Once computed, the icon is patched into the Menu the Player has open on the main thread. Icons that
+ * finish computing after the Player has closed the Menu are dropped.
+ * <br>
+ * How long a computed icon is kept depends on the icon caching mode. With NONE, the default, it is kept until the
+ * Player closes the Menu, so it is computed again every time the Menu is opened. With PER_PLAYER, it is kept until the
+ * MenuItem is invalidated for that Player, and with STATIC, the first icon computed is shown to every Player until the
+ * MenuItem is invalidated. When computing the icon fails, the placeholder is kept until the Player opens the Menu
+ * again, rather than retrying on every refresh.
+ */
+public abstract class AsyncMenuItem extends MenuItem {
+    private static final int WORKER_THREADS = 4;
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final ListeningExecutorService workers;
+
+    static {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(QUEUE_CAPACITY),
+                new ThreadFactoryBuilder().setNameFormat("StilesLib Menu Icon #%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        workers = MoreExecutors.listeningDecorator(executor);
+    }
+
+    private final Plugin plugin;
+    private final Cache<Player, ItemStack> computedIcons = CacheBuilder.newBuilder().weakKeys().build();
+    private final Cache<Player, ListenableFuture<ItemStack>> pendingIcons = CacheBuilder.newBuilder().weakKeys().build();
+    private final Cache<Player, Boolean> failedIcons = CacheBuilder.newBuilder().weakKeys().build();
+    private volatile ItemStack staticIcon;
+    private volatile ItemStack placeholder;
+
+    /**
+     * Create a new AsyncMenuItem to be displayed with the provided ItemStack as an icon, with the provided display
+     * name and lore. Until its display icon has been computed, the icon with the display name and lore applied is
+     * shown as a placeholder.
+     *
+     * @param plugin the Plugin used to schedule patching computed icons into Menus on the main thread
+     * @param icon the ItemStack that will be shown as a selectable option in a Menu
+     * @param displayName the name that will be applied to the provided ItemStack icon
+     * @param lore the lore that will be applied to the provided ItemStack icon
+     */
+    public AsyncMenuItem(Plugin plugin, ItemStack icon, String displayName, String... lore) {
+        super(icon, displayName, lore);
+        Preconditions.checkNotNull(plugin, "Plugin must not be null!");
+
+        this.plugin = plugin;
+    }
+
+    /**
+     * Get the icon shown while the display icon for a Player is still being computed.
+     *
+     * @return the placeholder icon
+     */
+    public ItemStack getPlaceholder() {
+        ItemStack placeholder = this.placeholder;
+        if (placeholder == null) {
+            placeholder = super.createDisplayIcon(null);
+            this.placeholder = placeholder;
+        }
+        return placeholder;
+    }
+
+    /**
+     * Set the icon shown while the display icon for a Player is still being computed. The placeholder is shared
+     * between renders and must not be modified afterwards.
+     *
+     * @param placeholder the placeholder icon
+     */
+    public void setPlaceholder(ItemStack placeholder) {
+        Preconditions.checkNotNull(placeholder, "Placeholder must not be null!");
+
+        this.placeholder = placeholder;
+    }
+
+    /**
+     * Discard every computed display icon of this AsyncMenuItem, along with any computation still in progress, so
+     * that they are computed again the next time this AsyncMenuItem is displayed.
+     */
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        pendingIcons.invalidateAll();
+        computedIcons.invalidateAll();
+        failedIcons.invalidateAll();
+        staticIcon = null;
+    }
+
+    /**
+     * Discard the display icon computed for the specified Player, along with any computation still in progress, so
+     * that it is computed again the next time this AsyncMenuItem is displayed to them.
+     *
+     * @param player the Player whose computed display icon should be discarded
+     */
+    @Override
+    public void invalidate(Player player) {
+        super.invalidate(player);
+        pendingIcons.invalidate(player);
+        computedIcons.invalidate(player);
+        failedIcons.invalidate(player);
+    }
+
+    /**
+     * Forget that computing the display icon failed for the specified Player, so that it is attempted again the next
+     * time they open the Menu. Unless icons are cached per Player or statically, the icon computed for them is
+     * discarded as well, along with any computation still in progress.
+     *
+     * @param player the Player whose session ended
+     */
+    @Override
+    public void handleClose(Player player) {
+        failedIcons.invalidate(player);
+
+        if (getIconCache() == IconCache.NONE) {
+            pendingIcons.invalidate(player);
+            computedIcons.invalidate(player);
+        }
+    }
+
+    /**
+     * Get the icon computed for the specified Player, or the placeholder icon if it has not been computed yet. In the
+     * latter case, the computation is started unless it is already in progress or has failed since the Player opened
+     * the Menu.
+     *
+     * @param player the Player the MenuItem will be displayed to
+     * @return the computed icon, or the placeholder icon
+     */
+    @Override
+    public ItemStack getDisplayIcon(Player player) {
+        ItemStack icon = getIconCache() == IconCache.STATIC ? staticIcon : computedIcons.getIfPresent(player);
+        if (icon != null) {
+            return icon;
+        }
+
+        if (pendingIcons.getIfPresent(player) == null && failedIcons.getIfPresent(player) == null) {
+            compute(player);
+        }
+        return getPlaceholder();
+    }
+
+    /**
+     * Check whether the provided icon is the placeholder or an icon computed for the specified Player, neither of which
+     * is modified once shown.
+     *
+     * @param player the Player the MenuItem was displayed to
+     * @param icon the icon returned by getDisplayIcon
+     * @return true if the icon is the placeholder or a computed icon
+     */
+    @Override
+    public boolean isCachedIcon(Player player, ItemStack icon) {
+        return icon != null && (icon == placeholder || icon == staticIcon || icon == computedIcons.getIfPresent(player));
+    }
+
+    /**
+     * Compute the display icon of this AsyncMenuItem for the specified Player.
+     * <br>
+     * This method is called on a worker thread, so it must not use any part of the Bukkit API that is not thread-safe.
+     * The ItemStack returned is shown as-is, so it should already have its display name and lore applied.
+     *
+     * @param player the Player the MenuItem will be displayed to
+     * @return the ItemStack representation of the MenuItem, ready to be displayed to the specified Player
+     * @throws Exception if the icon could not be computed, in which case the placeholder stays in place until the
+     *                   Player opens the Menu again
+     */
+    protected abstract ItemStack computeDisplayIcon(Player player) throws Exception;
+
+    /**
+     * Start computing the display icon for the specified Player on the worker pool. If the pool is saturated, the
+     * placeholder stays in place and the computation is attempted again the next time this MenuItem is displayed.
+     *
+     * @param player the Player the MenuItem will be displayed to
+     */
+    private void compute(final Player player) {
+        final ListenableFuture<ItemStack> future;
+        try {
+            future = workers.submit(new Callable<ItemStack>() {
+                @Override
+                public ItemStack call() throws Exception {
+                    return computeDisplayIcon(player);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return;
+        }
+        pendingIcons.put(player, future);
+
+        Futures.addCallback(future, new FutureCallback<ItemStack>() {
+            @Override
+            public void onSuccess(ItemStack icon) {
+                if (!finish(player, future) || icon == null) {
+                    return;
+                }
+
+                Menu menu = MenuListener.getInstance().getOpenMenu(player);
+                if (menu != null && menu.refreshItem(player, AsyncMenuItem.this)) {
+                    if (getIconCache() == IconCache.STATIC) {
+                        if (staticIcon == null) {
+                            staticIcon = icon;
+                        }
+                    } else {
+                        computedIcons.put(player, icon);
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                if (finish(player, future)) {
+                    failedIcons.put(player, Boolean.TRUE);
+                    t.printStackTrace();
+                }
+            }
+        }, mainThread());
+    }
+
+    /**
+     * Mark the computation for the specified Player as finished.
+     *
+     * @param player the Player the icon was computed for
+     * @param future the computation that finished
+     * @return true if the computation is still current, false if this MenuItem was invalidated while it was running
+     */
+    private boolean finish(Player player, ListenableFuture<ItemStack> future) {
+        if (pendingIcons.getIfPresent(player) != future) {
+            return false;
+        }
+
+        pendingIcons.invalidate(player);
+        return true;
+    }
+
+    /**
+     * Get an Executor that runs tasks on the main server thread on the next tick. Tasks are never run immediately, even
+     * on the main thread, since a computation that finishes before its callback is added would otherwise be handled
+     * while the Menu is still being opened, before it can be refreshed. Tasks given once the Plugin is disabled are
+     * dropped, as its Menus have been closed.
+     *
+     * @return the main thread Executor
+     */
+    private Executor mainThread() {
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (plugin.isEnabled()) {
+                    Bukkit.getScheduler().runTask(plugin, command);
+                }
+            }
+        };
+    }
+}
@@ -19,6 +19,8 @@
 package com.mstiles92.plugins.stileslib.menu.items;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.mstiles92.plugins.stileslib.menu.events.MenuClickEvent;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
@@ -34,6 +36,11 @@ public abstract class MenuItem {
     private ItemStack icon;
     private String displayName;
     private List<String> lore;
+    private volatile IconCache iconCache = IconCache.NONE;
+    private volatile ItemStack cachedIcon;
+    private volatile Cache<Player, ItemStack> playerIcons;
+    private volatile double clickRate = 0;
+    private volatile int clickBurst = 1;
 
     /**
      * Create a new MenuItem to be displayed with the provided ItemStack as an icon, with the provided display name and
@@ -80,14 +87,161 @@ public abstract class MenuItem {
     }
 
     /**
-     * Get the actual ItemStack that will be used to display to the specified Player in a Menu.
+     * Get the number of clicks per second each Player may make on this MenuItem in the same slot.
+     *
+     * @return the click rate, or 0 if clicks are not limited
+     */
+    public double getClickRate() {
+        return clickRate;
+    }
+
+    /**
+     * Get the number of clicks each Player may make on this MenuItem in the same slot in quick succession before
+     * being limited to the click rate.
+     *
+     * @return the click burst
+     */
+    public int getClickBurst() {
+        return clickBurst;
+    }
+
+    /**
+     * Limit how often each Player may click on this MenuItem in the same slot. Clicks over the limit are dropped
+     * without calling onClick. A Player may make up to burst clicks at once, after which they regain one click every
+     * 1 / clicksPerSecond seconds. Clicks are not limited unless this method is called.
+     *
+     * @param clicksPerSecond the sustained number of clicks per second, or 0 to not limit clicks at all
+     * @param burst the number of clicks that may be made at once, must be at least 1
+     */
+    public void setClickLimit(double clicksPerSecond, int burst) {
+        Preconditions.checkArgument(clicksPerSecond >= 0, "Click rate must not be negative! Was: %s", clicksPerSecond);
+        Preconditions.checkArgument(burst > 0, "Click burst must be at least 1! Was: %s", burst);
+
+        this.clickRate = clicksPerSecond;
+        this.clickBurst = burst;
+    }
+
+    /**
+     * Get the way display icons created for this MenuItem are cached.
+     *
+     * @return the icon caching mode of this MenuItem
+     */
+    public IconCache getIconCache() {
+        return iconCache;
+    }
+
+    /**
+     * Set the way display icons created for this MenuItem are cached, discarding any icons that are already cached.
+     *
+     * @param iconCache the icon caching mode to be used
+     */
+    public void setIconCache(IconCache iconCache) {
+        Preconditions.checkNotNull(iconCache, "Icon cache mode must not be null!");
+
+        if (iconCache == IconCache.PER_PLAYER && playerIcons == null) {
+            playerIcons = CacheBuilder.newBuilder().weakKeys().build();
+        }
+
+        this.iconCache = iconCache;
+        invalidate();
+    }
+
+    /**
+     * Discard every cached display icon of this MenuItem, so that they are created again the next time this MenuItem
+     * is displayed. This should be called whenever something the display icon depends on has changed.
+     */
+    public void invalidate() {
+        cachedIcon = null;
+
+        if (playerIcons != null) {
+            playerIcons.invalidateAll();
+        }
+    }
+
+    /**
+     * Discard the display icon cached for the specified Player, so that it is created again the next time this
+     * MenuItem is displayed to them. This only has an effect when icons are cached per Player.
+     *
+     * @param player the Player whose cached display icon should be discarded
+     */
+    public void invalidate(Player player) {
+        Preconditions.checkNotNull(player, "Player must not be null!");
+
+        if (playerIcons != null) {
+            playerIcons.invalidate(player);
+        }
+    }
+
+    /**
+     * Get the actual ItemStack that will be used to display to the specified Player in a Menu, taking it from the
+     * icon cache when this MenuItem caches its icons. A cached icon is shared between renders and must not be
+     * modified.
      * <br>
-     * This method should be overridden when the MenuItem needs to be customized depending on the Player seeing it.
+     * To customize the icon depending on the Player seeing it, override createDisplayIcon instead, which keeps the
+     * icon caching of this class. Overriding this method bypasses the cache entirely.
      *
      * @param player the Player the MenuItem will be displayed to
      * @return the ItemStack representation of the MenuItem, ready to be displayed to the specified Player
      */
     public ItemStack getDisplayIcon(Player player) {
+        ItemStack icon;
+
+        switch (iconCache) {
+            case STATIC:
+                icon = cachedIcon;
+                if (icon == null) {
+                    icon = createDisplayIcon(player);
+                    cachedIcon = icon;
+                }
+                return icon;
+            case PER_PLAYER:
+                icon = playerIcons.getIfPresent(player);
+                if (icon == null) {
+                    icon = createDisplayIcon(player);
+                    playerIcons.put(player, icon);
+                }
+                return icon;
+            default:
+                return createDisplayIcon(player);
+        }
+    }
+
+    /**
+     * Check whether the provided icon, returned by getDisplayIcon for the specified Player, is the one held in the icon
+     * cache. A cached icon is never modified, so a Menu may keep a reference to it instead of a copy.
+     * <br>
+     * This method should be overridden together with getDisplayIcon when the overriding implementation returns icons
+     * that are never modified once returned.
+     *
+     * @param player the Player the MenuItem was displayed to
+     * @param icon the icon returned by getDisplayIcon
+     * @return true if the icon is cached and will not be modified, false if it may be
+     */
+    public boolean isCachedIcon(Player player, ItemStack icon) {
+        if (icon == null) {
+            return false;
+        }
+
+        switch (iconCache) {
+            case STATIC:
+                return icon == cachedIcon;
+            case PER_PLAYER:
+                return icon == playerIcons.getIfPresent(player);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Create a new ItemStack to be used to display this MenuItem to the specified Player, by applying the display name
+     * and lore to a copy of the icon.
+     * <br>
+     * This method should be overridden when the MenuItem needs to be customized depending on the Player seeing it.
+     *
+     * @param player the Player the MenuItem will be displayed to
+     * @return the ItemStack representation of the MenuItem, ready to be displayed to the specified Player
+     */
+    protected ItemStack createDisplayIcon(Player player) {
         ItemStack icon = this.icon.clone();
         ItemMeta meta = icon.getItemMeta();
         meta.setDisplayName(displayName);
@@ -109,6 +263,18 @@ public abstract class MenuItem {
         return true;
     }
 
+    /**
+     * Handle the session of the specified Player in a Menu showing this MenuItem ending, because they closed the Menu
+     * rather than moving on to a submenu. This may be called more than once if the MenuItem is shown in several slots.
+     * <br>
+     * This method should be overridden when the MenuItem keeps state for a Player that should only last while the Menu
+     * is open. It does nothing by default.
+     *
+     * @param player the Player whose session ended
+     */
+    public void handleClose(Player player) {
+    }
+
     /**
      * Handle the MenuItem being clicked in a Menu.
      * <br>
@@ -118,4 +284,26 @@ public abstract class MenuItem {
      * @param event the MenuClickEvent fired by a Player clicking on a MenuItem
      */
     public abstract void onClick(MenuClickEvent event);
+
+    /**
+     * The ways in which a MenuItem can cache the display icons it creates.
+     */
+    public enum IconCache {
+        /**
+         * Create a new display icon every time the MenuItem is displayed.
+         */
+        NONE,
+
+        /**
+         * Create the display icon once and show it to every Player. Only suitable when the display icon does not
+         * depend on the Player seeing it.
+         */
+        STATIC,
+
+        /**
+         * Create the display icon once for each Player, keeping it until the MenuItem is invalidated for that Player
+         * or the Player object is no longer in use.
+         */
+        PER_PLAYER
+    }
 }
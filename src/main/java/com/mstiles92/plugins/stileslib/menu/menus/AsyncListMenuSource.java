@@ -0,0 +1,40 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.menu.menus;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.mstiles92.plugins.stileslib.menu.items.MenuItem;
+
+import java.util.List;
+
+/**
+ * A ListMenuSource that can fetch its items without blocking the main thread. A ListMenu backed by this kind of source
+ * only ever requests items through getItemsAsync, shows an empty page until they arrive, and fetches the pages next to
+ * the one being viewed ahead of time.
+ */
+public interface AsyncListMenuSource extends ListMenuSource {
+    /**
+     * Fetch a range of items from this source in the background. The future may be completed on any thread.
+     *
+     * @param offset the zero-based index of the first item to get
+     * @param count the maximum number of items to get
+     * @return a future for the items in the range, which may be fewer than requested at the end of the source
+     */
+    ListenableFuture<List<? extends MenuItem>> getItemsAsync(int offset, int count);
+}
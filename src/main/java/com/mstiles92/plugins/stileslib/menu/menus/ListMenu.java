@@ -1,33 +1,89 @@
 package com.mstiles92.plugins.stileslib.menu.menus;
 
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.mstiles92.plugins.stileslib.menu.events.MenuClickEvent;
 import com.mstiles92.plugins.stileslib.menu.items.MenuItem;
+import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * ListMenu is a more advanced Menu, with support for showing a group of items in a List. This class also provides
  * automatic pagination of items if there are too many to display in one InventoryView.
+ * <br>
+ * The items may be supplied as a List, or by a ListMenuSource that only creates the items of the pages being viewed.
+ * Pages fetched from a ListMenuSource are kept in a small cache of recently viewed pages, and the pages next to the
+ * one being viewed are fetched ahead of time when the source is an AsyncListMenuSource.
+ * <br>
+ * The page each Player is viewing is kept in their MenuSession, so a single ListMenu can be opened by any number of
+ * Players at once.
  */
 public class ListMenu extends Menu {
-    private List<? extends MenuItem> list;
     private static final int NUM_ROWS = 6;
     private static final int NUM_COLLECTION_ROWS = 4;
-    private int page = 1;
+    private static final int PAGE_SIZE = 9 * NUM_COLLECTION_ROWS;
+    private static final int CACHED_PAGES = 8;
 
-    public ListMenu(Plugin plugin, String title, final List<? extends MenuItem> list) {
+    private final ListMenuSource source;
+    private final boolean cachePages;
+    private final Map<Integer, List<? extends MenuItem>> pages = new LinkedHashMap<Integer, List<? extends MenuItem>>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<? extends MenuItem>> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+    private final Map<Integer, ListenableFuture<List<? extends MenuItem>>> pendingPages = new HashMap<>();
+    private int generation = 0;
+
+    /**
+     * Create a ListMenu showing the items of the provided List. The List is read each time a page is shown, so
+     * changes made to it are reflected the next time the Menu is opened or changes page.
+     *
+     * @param plugin the Plugin that is creating this Menu
+     * @param title the title to be shown to the Player in the open Inventory
+     * @param list the items to be shown
+     */
+    public ListMenu(Plugin plugin, String title, List<? extends MenuItem> list) {
+        this(plugin, title, new ListSource(list), false);
+    }
+
+    /**
+     * Create a ListMenu showing the items supplied by the provided source, which will only be asked for the pages
+     * that are viewed.
+     *
+     * @param plugin the Plugin that is creating this Menu
+     * @param title the title to be shown to the Player in the open Inventory
+     * @param source the source of the items to be shown
+     */
+    public ListMenu(Plugin plugin, String title, ListMenuSource source) {
+        this(plugin, title, source, true);
+    }
+
+    private ListMenu(Plugin plugin, String title, final ListMenuSource source, boolean cachePages) {
         super(plugin, title, NUM_ROWS);
-        this.list = list;
+        Preconditions.checkNotNull(source, "List menu source must not be null!");
 
-        setItem(45, new MenuItem(new ItemStack(Material.DIODE), ChatColor.RESET + "Previous Page") {
+        this.source = source;
+        this.cachePages = cachePages;
+
+        MenuItem previousPage = new MenuItem(new ItemStack(Material.DIODE), ChatColor.RESET + "Previous Page") {
             @Override
             public void onClick(MenuClickEvent event) {
-                page -= 1;
+                MenuSession session = getSession(event.getPlayer());
+                session.setPage(session.getPage() - 1);
 
                 applyPage(event.getPlayer());
                 event.setResult(MenuClickEvent.Result.REFRESH);
@@ -35,14 +91,17 @@ public class ListMenu extends Menu {
 
             @Override
             public boolean visibleTo(Player player) {
-                return page > 1;
+                return getSession(player).getPage() > 1;
             }
-        });
+        };
+        previousPage.setIconCache(MenuItem.IconCache.STATIC);
+        setItem(45, previousPage);
 
-        setItem(53, new MenuItem(new ItemStack(Material.REDSTONE_COMPARATOR), ChatColor.RESET + "Next Page") {
+        MenuItem nextPage = new MenuItem(new ItemStack(Material.REDSTONE_COMPARATOR), ChatColor.RESET + "Next Page") {
             @Override
             public void onClick(MenuClickEvent event) {
-                page += 1;
+                MenuSession session = getSession(event.getPlayer());
+                session.setPage(session.getPage() + 1);
 
                 applyPage(event.getPlayer());
                 event.setResult(MenuClickEvent.Result.REFRESH);
@@ -50,9 +109,11 @@ public class ListMenu extends Menu {
 
             @Override
             public boolean visibleTo(Player player) {
-                return list.size() > page * 9 * NUM_COLLECTION_ROWS;
+                return source.size() > getSession(player).getPage() * PAGE_SIZE;
             }
-        });
+        };
+        nextPage.setIconCache(MenuItem.IconCache.STATIC);
+        setItem(53, nextPage);
     }
 
     @Override
@@ -61,10 +122,188 @@ public class ListMenu extends Menu {
         super.open(player);
     }
 
+    /**
+     * Discard every cached page, so that items are requested from the source again. This should be called whenever
+     * the data behind a ListMenuSource has changed. Pages that are still being fetched are ignored once they arrive.
+     */
+    public void invalidatePages() {
+        pages.clear();
+        pendingPages.clear();
+        generation++;
+    }
+
+    @Override
+    protected MenuItem getItem(int position, Player player) {
+        if (position >= PAGE_SIZE) {
+            return super.getItem(position, player);
+        }
+
+        List<? extends MenuItem> items = getPage(getSession(player).getPage());
+        return items != null && position < items.size() ? items.get(position) : null;
+    }
+
+    /**
+     * Get the MenuItems shown to the specified Player, taking the items of the page they are viewing from the page
+     * cache only, so that a page is never fetched just to be discarded.
+     *
+     * @param player the Player viewing the Menu
+     * @return the MenuItems of the page being viewed and the page controls, without empty positions
+     */
+    @Override
+    protected List<MenuItem> getShownItems(Player player) {
+        int page = getSession(player).getPage();
+        List<? extends MenuItem> pageItems = cachePages ? pages.get(page) : getPage(page);
+
+        List<MenuItem> items = new ArrayList<>();
+        if (pageItems != null) {
+            for (MenuItem item : pageItems.subList(0, Math.min(pageItems.size(), PAGE_SIZE))) {
+                if (item != null) {
+                    items.add(item);
+                }
+            }
+        }
+        for (int i = PAGE_SIZE; i < NUM_ROWS * 9; i++) {
+            MenuItem item = super.getItem(i, player);
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Start loading the page the specified Player is viewing, along with the pages next to it.
+     *
+     * @param player the Player viewing the Menu
+     */
     private void applyPage(Player player) {
-        for (int i = 0; i < 9 * NUM_COLLECTION_ROWS; i++) {
-            int index = i + ((page - 1) * 9 * NUM_COLLECTION_ROWS);
-            setItem(i, index < list.size() ? list.get(index) : null);
+        int page = getSession(player).getPage();
+
+        getPage(page);
+        prefetch(page - 1);
+        prefetch(page + 1);
+    }
+
+    /**
+     * Get the items of the specified page, from the page cache if possible. When the source is asynchronous and the
+     * page is not cached, a fetch is started and null is returned unless the fetch completes immediately.
+     *
+     * @param page the one-based number of the page
+     * @return the items of the page, or null if they are still being fetched
+     */
+    private List<? extends MenuItem> getPage(int page) {
+        if (!cachePages) {
+            return source.getItems((page - 1) * PAGE_SIZE, PAGE_SIZE);
+        }
+
+        List<? extends MenuItem> items = pages.get(page);
+        if (items == null) {
+            if (source instanceof AsyncListMenuSource) {
+                fetch(page);
+                items = pages.get(page);
+            } else {
+                items = source.getItems((page - 1) * PAGE_SIZE, PAGE_SIZE);
+                pages.put(page, items);
+            }
+        }
+
+        return items;
+    }
+
+    /**
+     * Start fetching the specified page in the background if it exists and is not cached or already being fetched.
+     * Only asynchronous sources are prefetched, as fetching from any other source would block the main thread.
+     *
+     * @param page the one-based number of the page
+     */
+    private void prefetch(int page) {
+        if (cachePages && source instanceof AsyncListMenuSource && page > 0 && (page - 1) * PAGE_SIZE < source.size()
+                && !pages.containsKey(page)) {
+            fetch(page);
+        }
+    }
+
+    /**
+     * Fetch the specified page from the asynchronous source, caching it on the main thread when it arrives and showing
+     * it to the Players who are viewing that page.
+     *
+     * @param page the one-based number of the page
+     */
+    private void fetch(final int page) {
+        if (pendingPages.containsKey(page)) {
+            return;
+        }
+
+        final int fetchGeneration = generation;
+        ListenableFuture<List<? extends MenuItem>> future = ((AsyncListMenuSource) source).getItemsAsync((page - 1) * PAGE_SIZE, PAGE_SIZE);
+        pendingPages.put(page, future);
+
+        Futures.addCallback(future, new FutureCallback<List<? extends MenuItem>>() {
+            @Override
+            public void onSuccess(List<? extends MenuItem> items) {
+                if (fetchGeneration != generation) {
+                    return;
+                }
+
+                pendingPages.remove(page);
+                pages.put(page, items);
+
+                for (MenuSession session : getSessions()) {
+                    if (session.getPage() == page) {
+                        refresh(session.getPlayer());
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                if (fetchGeneration == generation) {
+                    pendingPages.remove(page);
+                }
+                t.printStackTrace();
+            }
+        }, mainThread());
+    }
+
+    /**
+     * Get an Executor that runs tasks on the main server thread, immediately if already on it.
+     *
+     * @return the main thread Executor
+     */
+    private Executor mainThread() {
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (Bukkit.isPrimaryThread()) {
+                    command.run();
+                } else {
+                    Bukkit.getScheduler().runTask(getPlugin(), command);
+                }
+            }
+        };
+    }
+
+    /**
+     * A ListMenuSource reading directly from a List.
+     */
+    private static class ListSource implements ListMenuSource {
+        private final List<? extends MenuItem> list;
+
+        private ListSource(List<? extends MenuItem> list) {
+            Preconditions.checkNotNull(list, "List must not be null!");
+
+            this.list = list;
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+
+        @Override
+        public List<? extends MenuItem> getItems(int offset, int count) {
+            int from = Math.min(offset, list.size());
+            return list.subList(from, Math.min(from + count, list.size()));
         }
     }
 }
@@ -0,0 +1,46 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.menu.menus;
+
+import com.mstiles92.plugins.stileslib.menu.items.MenuItem;
+
+import java.util.List;
+
+/**
+ * A source of the items shown by a ListMenu, which only needs to create the items of the pages that are actually
+ * displayed. This allows a ListMenu to page through data sets that are too large, or too expensive, to turn into
+ * MenuItems all at once.
+ */
+public interface ListMenuSource {
+    /**
+     * Get the total number of items available from this source.
+     *
+     * @return the number of items
+     */
+    int size();
+
+    /**
+     * Get a range of items from this source.
+     *
+     * @param offset the zero-based index of the first item to get
+     * @param count the maximum number of items to get
+     * @return the items in the range, which may be fewer than requested at the end of the source
+     */
+    List<? extends MenuItem> getItems(int offset, int count);
+}
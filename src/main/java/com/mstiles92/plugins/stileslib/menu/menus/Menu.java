@@ -18,8 +18,10 @@
 
 package com.mstiles92.plugins.stileslib.menu.menus;
 
+import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.mstiles92.plugins.stileslib.menu.MenuInventoryHolder;
+import com.mstiles92.plugins.stileslib.menu.MenuListener;
 import com.mstiles92.plugins.stileslib.menu.events.MenuClickEvent;
 import com.mstiles92.plugins.stileslib.menu.items.MenuItem;
 import org.bukkit.Bukkit;
@@ -27,8 +29,20 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.ClickType;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A menu with clickable icons to be displayed to a Player in an Inventory.
@@ -39,6 +53,13 @@ public class Menu {
     private int numRows;
     private MenuItem[] contents;
     private Menu previousMenu;
+    private final Map<UUID, MenuSession> sessions = new HashMap<>();
+    private final Object refreshLock = new Object();
+    private final Map<UUID, PendingRefresh> pendingRefreshes = new LinkedHashMap<>();
+    private PendingRefresh pendingBroadcast;
+    private BukkitTask refreshTask;
+    private volatile int refreshInterval = 1;
+    private final AtomicLong droppedClicks = new AtomicLong();
 
     /**
      * Create a basic Menu with the specified title and size.
@@ -98,6 +119,142 @@ public class Menu {
         contents[position] = item;
     }
 
+    /**
+     * Get the minimum number of ticks between two refreshes of this Menu for the same Player.
+     *
+     * @return the refresh interval in ticks
+     */
+    public int getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    /**
+     * Set the minimum number of ticks between two refreshes of this Menu for the same Player. Refreshes requested more
+     * often than this are merged and delayed until the interval has passed.
+     *
+     * @param refreshInterval the refresh interval in ticks, must be at least 1
+     */
+    public void setRefreshInterval(int refreshInterval) {
+        Preconditions.checkArgument(refreshInterval > 0, "Refresh interval must be at least 1 tick! Was: %s", refreshInterval);
+
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Get the number of clicks on this Menu that were dropped because a Player clicked a MenuItem faster than its
+     * click limit allows. This may be called from any thread.
+     *
+     * @return the total number of dropped clicks
+     */
+    public long getDroppedClicks() {
+        return droppedClicks.get();
+    }
+
+    /**
+     * Get the MenuItem to be shown to the specified Player in a specific position of the Menu.
+     * <br>
+     * This method should be overridden when the contents of the Menu depend on the state of the Player's session, such
+     * as the page they are viewing.
+     *
+     * @param position the zero-based position of the MenuItem
+     * @param player the Player viewing the Menu
+     * @return the MenuItem in the position, or null if the position is empty
+     */
+    protected MenuItem getItem(int position, Player player) {
+        return contents[position];
+    }
+
+    /**
+     * Get the session holding the state of the specified Player viewing this Menu, starting a new one if they do not
+     * have one yet.
+     *
+     * @param player the Player viewing the Menu
+     * @return the Player's session
+     */
+    public MenuSession getSession(Player player) {
+        Preconditions.checkNotNull(player, "Player must not be null!");
+
+        MenuSession session = sessions.get(player.getUniqueId());
+        if (session == null) {
+            session = new MenuSession(player);
+            sessions.put(player.getUniqueId(), session);
+        }
+        return session;
+    }
+
+    /**
+     * Get the sessions of every Player currently viewing this Menu, or waiting to return to it from a submenu.
+     *
+     * @return a copy of the current sessions
+     */
+    protected Collection<MenuSession> getSessions() {
+        return new ArrayList<>(sessions.values());
+    }
+
+    /**
+     * Handle the Player closing an Inventory of this Menu, ending their session unless they are only moving on to a
+     * submenu or the Menu has already been opened again in a new Inventory. Ending a session also ends the sessions of
+     * any previous Menus the Player was going to return to, and lets the MenuItems of each Menu discard any state kept
+     * for the Player.
+     *
+     * @param player the Player who closed the Inventory
+     * @param inventory the Inventory that was closed
+     */
+    public void handleClose(Player player, Inventory inventory) {
+        MenuSession session = sessions.get(player.getUniqueId());
+
+        if (session == null || session.getInventory() != inventory) {
+            return;
+        }
+
+        if (!session.isSuspended()) {
+            endSession(player);
+
+            for (Menu menu = previousMenu; menu != null && menu != this; menu = menu.previousMenu) {
+                MenuSession previousSession = menu.sessions.get(player.getUniqueId());
+                if (previousSession == null || !previousSession.isSuspended()) {
+                    break;
+                }
+                menu.endSession(player);
+            }
+        }
+    }
+
+    /**
+     * End the session of the specified Player, and notify every MenuItem shown to them that it ended. The MenuItems
+     * are looked up while the session still exists, so that they are the ones the Player was actually viewing.
+     *
+     * @param player the Player whose session ended
+     */
+    private void endSession(Player player) {
+        List<MenuItem> items = getShownItems(player);
+        sessions.remove(player.getUniqueId());
+
+        for (MenuItem item : items) {
+            item.handleClose(player);
+        }
+    }
+
+    /**
+     * Get the MenuItems shown to the specified Player, as of their current session. This is only called while the
+     * Player has a session, and should not fetch any MenuItems that are not already at hand.
+     * <br>
+     * This method should be overridden together with getItem when looking up an item in a position could be expensive.
+     *
+     * @param player the Player viewing the Menu
+     * @return the MenuItems in every position of the Menu, without empty positions
+     */
+    protected List<MenuItem> getShownItems(Player player) {
+        List<MenuItem> items = new ArrayList<>();
+        for (int i = 0; i < contents.length; i++) {
+            MenuItem item = getItem(i, player);
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
     /**
      * Get the Menu which opened this Menu, if this Menu was opened by another.
      *
@@ -125,9 +282,15 @@ public class Menu {
         Preconditions.checkNotNull(player, "Player opening a menu inventory must not be null!");
         Preconditions.checkState(player.isOnline(), "Player opening a menu inventory must be online!");
 
-        Inventory inventory = Bukkit.createInventory(new MenuInventoryHolder(this, Bukkit.createInventory(player, numRows * 9)), numRows * 9, title);
+        MenuInventoryHolder holder = new MenuInventoryHolder(this, Bukkit.createInventory(player, numRows * 9));
+        Inventory inventory = Bukkit.createInventory(holder, numRows * 9, title);
+
+        MenuSession session = getSession(player);
+        session.setInventory(inventory);
+        session.setSuspended(false);
 
-        applyMenuToInventory(inventory, player);
+        session.setLastRefresh(System.currentTimeMillis());
+        applyMenuToInventory(inventory, holder, player, null);
 
         player.openInventory(inventory);
     }
@@ -144,16 +307,23 @@ public class Menu {
 
         int clickedSlot = event.getRawSlot();
 
-        if (clickedSlot >= 0 && clickedSlot < numRows * 9 && contents[clickedSlot] != null) {
+        if (clickedSlot >= 0 && clickedSlot < numRows * 9) {
             Player player = (Player) event.getWhoClicked();
+            MenuItem item = getItem(clickedSlot, player);
+
+            if (item != null && item.visibleTo(player)) {
+                double clickRate = item.getClickRate();
+                if (clickRate > 0 && !getSession(player).tryClick(clickedSlot, clickRate, item.getClickBurst(), System.currentTimeMillis())) {
+                    droppedClicks.incrementAndGet();
+                    return;
+                }
 
-            if (contents[clickedSlot].visibleTo(player)) {
                 MenuClickEvent menuClickEvent = new MenuClickEvent(player, this);
-                contents[clickedSlot].onClick(menuClickEvent);
+                item.onClick(menuClickEvent);
 
                 switch (menuClickEvent.getResult()) {
                     case REFRESH:
-                        refreshMenu(player);
+                        refresh(player);
                         break;
                     case CLOSE:
                         closeMenuLater(player);
@@ -162,6 +332,7 @@ public class Menu {
                         Menu submenu = menuClickEvent.getSubmenu();
                         Preconditions.checkNotNull(submenu, "Result was set to SUBMENU, but no submenu was specified by MenuClickEvent.setSubmenu(Menu)");
                         submenu.setPreviousMenu(this);
+                        getSession(player).setSuspended(true);
                         openMenuLater(submenu, player);
                         break;
                     case PREVIOUS:
@@ -174,36 +345,241 @@ public class Menu {
     }
 
     /**
-     * Refresh all items in this Menu's Inventory, to reflect any changes that may have been made to the contents.
+     * Refresh every item shown to the specified Player, to reflect any changes that may have been made to the
+     * contents. The refresh is performed on the next tick, together with every other refresh requested before then.
+     * This may be called from any thread.
+     *
+     * @param player the Player who is currently viewing the Menu
+     */
+    public void refresh(Player player) {
+        Preconditions.checkNotNull(player, "Player must not be null!");
+
+        synchronized (refreshLock) {
+            getPendingRefresh(player).addAll();
+            scheduleRefresh(1);
+        }
+    }
+
+    /**
+     * Refresh every item shown to every Player viewing this Menu. The refresh is performed on the next tick, together
+     * with every other refresh requested before then. This may be called from any thread.
+     */
+    public void refreshAllViewers() {
+        synchronized (refreshLock) {
+            if (pendingBroadcast == null) {
+                pendingBroadcast = new PendingRefresh(null);
+            }
+            pendingBroadcast.addAll();
+            scheduleRefresh(1);
+        }
+    }
+
+    /**
+     * Refresh the item in a single position for every Player viewing this Menu. The refresh is performed on the next
+     * tick, together with every other refresh requested before then. This may be called from any thread.
+     *
+     * @param position the zero-based position of the item to be refreshed
+     */
+    public void refreshSlot(int position) {
+        Preconditions.checkElementIndex(position, contents.length);
+
+        synchronized (refreshLock) {
+            if (pendingBroadcast == null) {
+                pendingBroadcast = new PendingRefresh(null);
+            }
+            pendingBroadcast.add(position);
+            scheduleRefresh(1);
+        }
+    }
+
+    /**
+     * Refresh every position in which the provided MenuItem is shown to the specified Player. The refresh is performed
+     * on the next tick, together with every other refresh requested before then. Must be called from the main thread.
+     *
+     * @param player the Player who is currently viewing the Menu
+     * @param item the MenuItem to be refreshed
+     * @return true if the MenuItem is shown to the Player in this Menu, false if there was nothing to refresh
+     */
+    public boolean refreshItem(Player player, MenuItem item) {
+        Preconditions.checkNotNull(player, "Player must not be null!");
+        Preconditions.checkNotNull(item, "MenuItem must not be null!");
+
+        BitSet slots = new BitSet(contents.length);
+        for (int i = 0; i < contents.length; i++) {
+            if (getItem(i, player) == item) {
+                slots.set(i);
+            }
+        }
+
+        if (slots.isEmpty()) {
+            return false;
+        }
+
+        synchronized (refreshLock) {
+            PendingRefresh pending = getPendingRefresh(player);
+            for (int i = slots.nextSetBit(0); i >= 0; i = slots.nextSetBit(i + 1)) {
+                pending.add(i);
+            }
+            scheduleRefresh(1);
+        }
+        return true;
+    }
+
+    /**
+     * Get the refresh waiting to be performed for the specified Player, creating it if there is none. Must be called
+     * while holding the refresh lock.
+     *
+     * @param player the Player to be refreshed
+     * @return the pending refresh of the Player
+     */
+    private PendingRefresh getPendingRefresh(Player player) {
+        PendingRefresh pending = pendingRefreshes.get(player.getUniqueId());
+        if (pending == null) {
+            pending = new PendingRefresh(player);
+            pendingRefreshes.put(player.getUniqueId(), pending);
+        }
+        return pending;
+    }
+
+    /**
+     * Schedule the pending refreshes to be performed after the specified delay, unless they are already scheduled.
+     * Must be called while holding the refresh lock.
+     *
+     * @param delay the delay in ticks
+     */
+    private void scheduleRefresh(long delay) {
+        if (refreshTask == null) {
+            refreshTask = new BukkitRunnable() {
+                @Override
+                public void run() {
+                    performRefreshes();
+                }
+            }.runTaskLater(plugin, delay);
+        }
+    }
+
+    /**
+     * Perform every pending refresh, rendering each Player's Inventory once no matter how many refreshes were requested
+     * for them. Players who were refreshed too recently keep their refresh pending until their interval has passed.
+     */
+    private void performRefreshes() {
+        List<PendingRefresh> refreshes;
+        PendingRefresh broadcast;
+
+        synchronized (refreshLock) {
+            refreshes = new ArrayList<>(pendingRefreshes.values());
+            broadcast = pendingBroadcast;
+            pendingRefreshes.clear();
+            pendingBroadcast = null;
+            refreshTask = null;
+        }
+
+        if (broadcast != null) {
+            Map<UUID, PendingRefresh> merged = new LinkedHashMap<>();
+            for (PendingRefresh pending : refreshes) {
+                merged.put(pending.player.getUniqueId(), pending);
+            }
+            for (Player player : MenuListener.getInstance().getViewers(this)) {
+                PendingRefresh pending = merged.get(player.getUniqueId());
+                if (pending == null) {
+                    pending = new PendingRefresh(player);
+                    merged.put(player.getUniqueId(), pending);
+                }
+                pending.addAll(broadcast);
+            }
+            refreshes = new ArrayList<>(merged.values());
+        }
+
+        long now = System.currentTimeMillis();
+        // Refreshes are already limited to one per tick by batching, and longer intervals allow half a tick of jitter
+        long minimumGap = refreshInterval == 1 ? 0 : refreshInterval * 50L - 25L;
+        long nextDue = Long.MAX_VALUE;
+        List<PendingRefresh> delayed = new ArrayList<>();
+
+        for (PendingRefresh pending : refreshes) {
+            MenuSession session = sessions.get(pending.player.getUniqueId());
+            if (session == null) {
+                continue;
+            }
+
+            if (now - session.getLastRefresh() < minimumGap) {
+                delayed.add(pending);
+                nextDue = Math.min(nextDue, session.getLastRefresh() + minimumGap);
+                continue;
+            }
+
+            session.setLastRefresh(now);
+            refreshMenu(pending.player, pending.allSlots ? null : pending.slots);
+        }
+
+        if (!delayed.isEmpty()) {
+            synchronized (refreshLock) {
+                for (PendingRefresh pending : delayed) {
+                    getPendingRefresh(pending.player).addAll(pending);
+                }
+                scheduleRefresh(Math.max(1, (nextDue - now + 49) / 50));
+            }
+        }
+    }
+
+    /**
+     * Refresh all items in this Menu's Inventory immediately, to reflect any changes that may have been made to the
+     * contents.
+     *
+     * @param player the Player who is currently viewing the Menu
+     */
+    protected void refreshMenu(Player player) {
+        refreshMenu(player, null);
+    }
+
+    /**
+     * Refresh the specified items in this Menu's Inventory immediately. Only the slots whose icon changed are sent to
+     * the Player, so the whole Inventory is never resent.
      *
      * @param player the Player who is currently viewing the Menu
+     * @param slots the positions to be refreshed, or null to refresh every position
      */
-    @SuppressWarnings("deprecation")
-    private void refreshMenu(Player player) {
+    private void refreshMenu(Player player, BitSet slots) {
         if (player.getOpenInventory() != null) {
             Inventory inventory = player.getOpenInventory().getTopInventory();
 
             if (inventory.getHolder() instanceof MenuInventoryHolder && ((MenuInventoryHolder) inventory.getHolder()).getMenu().equals(this)) {
-                applyMenuToInventory(inventory, player);
-                player.updateInventory();
+                applyMenuToInventory(inventory, (MenuInventoryHolder) inventory.getHolder(), player, slots);
             }
         }
     }
 
     /**
-     * Apply the current Menu's contents to the provided Inventory.
+     * Apply the current Menu's contents to the provided Inventory. Only the slots whose icon differs from the icon
+     * last rendered into the Inventory are updated, so refreshing a Menu in which little has changed sends little to
+     * the Player. Icons held in a MenuItem's icon cache are remembered by reference, and any other icon by a copy, as
+     * it may be modified in place before the next refresh.
      *
      * @param inventory the Inventory to apply the current Menu's contents to
+     * @param holder the holder of the Inventory, which keeps the icons last rendered into it
      * @param player the Player that the MenuItem will use to check for visibility and to get the display icon
+     * @param slots the positions to be applied, or null to apply every position
+     * @return true if any slot of the Inventory was changed, false if it already matched the Menu's contents
      */
-    private void applyMenuToInventory(Inventory inventory, Player player) {
-        inventory.clear();
+    private boolean applyMenuToInventory(Inventory inventory, MenuInventoryHolder holder, Player player, BitSet slots) {
+        ItemStack[] renderedIcons = holder.getRenderedIcons();
+        boolean changed = false;
 
-        for (int i = 0; i < contents.length; i++) {
-            if (contents[i] != null && contents[i].visibleTo(player)) {
-                inventory.setItem(i, contents[i].getDisplayIcon(player));
+        for (int i = slots == null ? 0 : slots.nextSetBit(0); i >= 0 && i < contents.length; i = slots == null ? i + 1 : slots.nextSetBit(i + 1)) {
+            MenuItem item = getItem(i, player);
+            ItemStack icon = null;
+            if (item != null && item.visibleTo(player)) {
+                icon = item.getDisplayIcon(player);
+            }
+
+            if (!Objects.equal(icon, renderedIcons[i])) {
+                inventory.setItem(i, icon);
+                renderedIcons[i] = icon == null || item.isCachedIcon(player, icon) ? icon : icon.clone();
+                changed = true;
             }
         }
+
+        return changed;
     }
 
     /**
@@ -238,4 +614,30 @@ public class Menu {
 
         runnable.runTaskLater(plugin, 2);
     }
+
+    /**
+     * The positions waiting to be refreshed for a single Player, or for every viewer when the Player is null.
+     */
+    private static class PendingRefresh {
+        private final Player player;
+        private final BitSet slots = new BitSet();
+        private boolean allSlots = false;
+
+        private PendingRefresh(Player player) {
+            this.player = player;
+        }
+
+        private void add(int position) {
+            slots.set(position);
+        }
+
+        private void addAll() {
+            allSlots = true;
+        }
+
+        private void addAll(PendingRefresh other) {
+            allSlots |= other.allSlots;
+            slots.or(other.slots);
+        }
+    }
 }
@@ -0,0 +1,201 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.menu.menus;
+
+import com.google.common.base.Preconditions;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The state of a single Player viewing a Menu, such as the page they are on. Keeping this state per Player allows one
+ * Menu to be shared by every Player on the server. A session is started the first time a Menu needs state for a
+ * Player, and ended when the Player closes the Menu, unless they only left it to open one of its submenus.
+ */
+public class MenuSession {
+    private final Player player;
+    private final Map<String, Object> attributes = new HashMap<>();
+    private int page = 1;
+    private Inventory inventory;
+    private boolean suspended = false;
+    private long lastRefresh = 0;
+    private final Map<Integer, ClickBucket> clickBuckets = new HashMap<>();
+
+    /**
+     * Create a new session for the specified Player.
+     *
+     * @param player the Player viewing the Menu
+     */
+    MenuSession(Player player) {
+        this.player = player;
+    }
+
+    /**
+     * Get the Player this session belongs to.
+     *
+     * @return the Player viewing the Menu
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Get the one-based number of the page the Player is viewing.
+     *
+     * @return the current page
+     */
+    public int getPage() {
+        return page;
+    }
+
+    /**
+     * Set the one-based number of the page the Player is viewing.
+     *
+     * @param page the new current page, must be at least 1
+     */
+    public void setPage(int page) {
+        Preconditions.checkArgument(page > 0, "Page must be at least 1! Was: %s", page);
+
+        this.page = page;
+    }
+
+    /**
+     * Get a custom value stored in this session, such as a scroll position or a search filter.
+     *
+     * @param key the key the value was stored with
+     * @return the stored value, or null if there is none
+     */
+    public Object getAttribute(String key) {
+        return attributes.get(key);
+    }
+
+    /**
+     * Store a custom value in this session, which is discarded when the session ends.
+     *
+     * @param key the key to store the value with
+     * @param value the value to be stored, or null to remove the stored value
+     */
+    public void setAttribute(String key, Object value) {
+        Preconditions.checkNotNull(key, "Attribute key must not be null!");
+
+        if (value == null) {
+            attributes.remove(key);
+        } else {
+            attributes.put(key, value);
+        }
+    }
+
+    /**
+     * Get the Inventory the Menu was most recently opened in for the Player.
+     *
+     * @return the open Inventory, or null if the Menu has not been opened yet
+     */
+    Inventory getInventory() {
+        return inventory;
+    }
+
+    /**
+     * Set the Inventory the Menu was opened in for the Player.
+     *
+     * @param inventory the open Inventory
+     */
+    void setInventory(Inventory inventory) {
+        this.inventory = inventory;
+    }
+
+    /**
+     * Check whether the Player left the Menu to open one of its submenus, and may come back to it.
+     *
+     * @return true if the session is waiting for the Player to return
+     */
+    boolean isSuspended() {
+        return suspended;
+    }
+
+    /**
+     * Set whether the Player left the Menu to open one of its submenus.
+     *
+     * @param suspended true if the session should wait for the Player to return
+     */
+    void setSuspended(boolean suspended) {
+        this.suspended = suspended;
+    }
+
+    /**
+     * Get the time the Menu was last rendered for the Player.
+     *
+     * @return the time of the last render, in milliseconds since the epoch
+     */
+    long getLastRefresh() {
+        return lastRefresh;
+    }
+
+    /**
+     * Set the time the Menu was last rendered for the Player.
+     *
+     * @param lastRefresh the time of the last render, in milliseconds since the epoch
+     */
+    void setLastRefresh(long lastRefresh) {
+        this.lastRefresh = lastRefresh;
+    }
+
+    /**
+     * Take a click from the token bucket of the specified slot, refilling the bucket for the time passed since the
+     * previous click first.
+     *
+     * @param slot the slot that was clicked
+     * @param clicksPerSecond the rate at which the bucket is refilled
+     * @param burst the capacity of the bucket
+     * @param now the current time, in milliseconds since the epoch
+     * @return true if the click is allowed, false if the bucket is empty and the click should be dropped
+     */
+    boolean tryClick(int slot, double clicksPerSecond, int burst, long now) {
+        ClickBucket bucket = clickBuckets.get(slot);
+        if (bucket == null) {
+            bucket = new ClickBucket(burst, now);
+            clickBuckets.put(slot, bucket);
+        } else {
+            double refilled = bucket.tokens + (now - bucket.lastRefill) * clicksPerSecond / 1000;
+            bucket.tokens = Math.min(burst, refilled);
+            bucket.lastRefill = now;
+        }
+
+        if (bucket.tokens < 1) {
+            return false;
+        }
+
+        bucket.tokens--;
+        return true;
+    }
+
+    /**
+     * The clicks a Player has left in a single slot.
+     */
+    private static class ClickBucket {
+        private double tokens;
+        private long lastRefill;
+
+        private ClickBucket(double tokens, long lastRefill) {
+            this.tokens = tokens;
+            this.lastRefill = lastRefill;
+        }
+    }
+}
@@ -22,8 +22,12 @@ import org.junit.Test;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class CalendarUtilsTest {
     private Calendar c1 = new GregorianCalendar();
@@ -70,4 +74,173 @@ public class CalendarUtilsTest {
         c2.setTimeInMillis(c1.getTimeInMillis() + (1000 * 60 * 60 * 24 * 1) + (1000 * 60 * 60 * 12) + (1000 * 60 * 15) + (1000 * 1));
         assertEquals("1 day 12 hours 15 minutes 1 second", CalendarUtils.buildTimeDifference(c1, c2));
     }
+
+    @Test
+    public void testParseTimeUnits() {
+        assertArrayEquals(new int[] { 0, 0, 0, 0, 0, 0, 1 }, CalendarUtils.parseTimeUnits("1s"));
+        assertArrayEquals(new int[] { 0, 0, 0, 0, 0, 5, 30 }, CalendarUtils.parseTimeUnits("5m30s"));
+        assertArrayEquals(new int[] { 0, 0, 0, 0, 1, 30, 22 }, CalendarUtils.parseTimeUnits("1h30m22s"));
+        assertArrayEquals(new int[] { 1, 2, 3, 4, 5, 6, 7 }, CalendarUtils.parseTimeUnits("1y2mo3w4d5h6m7s"));
+        assertArrayEquals(new int[] { 0, 2, 0, 1, 0, 0, 0 }, CalendarUtils.parseTimeUnits("2 Months, 1 day"));
+        assertArrayEquals(new int[] { 0, 0, 0, 0, 0, 0, 45 }, CalendarUtils.parseTimeUnits("45"));
+        assertNull(CalendarUtils.parseTimeUnits(""));
+        assertNull(CalendarUtils.parseTimeUnits("forever"));
+    }
+
+    @Test
+    public void testParseTimeUnitsMatchesRegex() {
+        String[] inputs = new String[] { "", "s", "1s", "5s", "5m30s", "1h30m22s", "1y2mo3w4d5h6m7s", "30m", "5mo",
+                "5min", "5 minutes", "5month", "2ms", "1h30", "1 2h", "12", "ban for 3d", "3d ban 2h", "1Y 2MO, 3W",
+                "10 years, 11 months, 4 weeks", "1h 1h", "5s5m", "7 s", "07s", "1d,,, 2h", "1\t2", "99999999999s",
+                "1y99999999999s", "2147483647s", "2147483648s" };
+
+        for (String input : inputs) {
+            assertParity(input);
+        }
+
+        String alphabet = "0123456789ymowdhsnMOYWDHS ,\tx";
+        Random random = new Random(92);
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder input = new StringBuilder();
+            int length = random.nextInt(16);
+            for (int j = 0; j < length; j++) {
+                input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertParity(input.toString());
+        }
+    }
+
+    @Test
+    public void testParseTimeDifferenceMatchesUnits() {
+        Calendar expected = new GregorianCalendar();
+        Calendar actual = CalendarUtils.parseTimeDifference("1y2mo3w4d5h6m7s");
+        expected.add(Calendar.YEAR, 1);
+        expected.add(Calendar.MONTH, 2);
+        expected.add(Calendar.WEEK_OF_YEAR, 3);
+        expected.add(Calendar.DAY_OF_YEAR, 4);
+        expected.add(Calendar.HOUR_OF_DAY, 5);
+        expected.add(Calendar.MINUTE, 6);
+        expected.add(Calendar.SECOND, 7);
+        assertTrue(Math.abs(actual.getTimeInMillis() - expected.getTimeInMillis()) < tolerance);
+
+        assertNull(CalendarUtils.parseTimeDifference("never"));
+    }
+
+    @Test
+    public void testBuildTimeDifferenceFromMillis() {
+        long now = System.currentTimeMillis();
+        assertEquals("now", CalendarUtils.buildTimeDifference(now, now));
+        assertEquals("now", CalendarUtils.buildTimeDifference(now, now + 999));
+        assertEquals("now", CalendarUtils.buildTimeDifference(now + 5000, now));
+        assertEquals("1 second", CalendarUtils.buildTimeDifference(now, now + 1000));
+        assertEquals("19 hours 59 minutes 59 seconds", CalendarUtils.buildTimeDifference(now, now + (1000 * 60 * 60 * 20) - 1000));
+
+        Calendar start = new GregorianCalendar(2014, Calendar.MARCH, 10, 12, 0, 0);
+        Calendar end = (Calendar) start.clone();
+        end.add(Calendar.YEAR, 10);
+        assertEquals("10 years", CalendarUtils.buildTimeDifference(start, end));
+        end.add(Calendar.MONTH, 11);
+        end.add(Calendar.DAY_OF_YEAR, 20);
+        end.add(Calendar.SECOND, 59);
+        assertEquals("10 years 11 months 2 weeks 6 days 59 seconds", CalendarUtils.buildTimeDifference(start.getTimeInMillis(), end.getTimeInMillis()));
+    }
+
+    @Test
+    public void testBuildTimeDifferenceMatchesIterativeCount() {
+        Random random = new Random(92);
+
+        for (int i = 0; i < 2000; i++) {
+            c1.setTimeInMillis(1300000000000L + (long) (random.nextDouble() * 400000000000L));
+            // the iterative count differed when starting on a day that does not exist in every month, or at a time of
+            // day that may be skipped by a daylight saving time change
+            if (c1.get(Calendar.DAY_OF_MONTH) > 28 || c1.get(Calendar.HOUR_OF_DAY) < 4) {
+                continue;
+            }
+
+            c2.setTimeInMillis(c1.getTimeInMillis() + (long) Math.pow(10, 3 + random.nextDouble() * 7));
+            assertEquals(buildWithIterativeCount(c1, c2), CalendarUtils.buildTimeDifference(c1, c2));
+        }
+    }
+
+    private void assertParity(String input) {
+        String expected;
+        String actual;
+
+        try {
+            expected = Arrays.toString(parseWithRegex(input));
+        } catch (NumberFormatException e) {
+            expected = "NumberFormatException";
+        }
+
+        try {
+            actual = Arrays.toString(CalendarUtils.parseTimeUnits(input));
+        } catch (NumberFormatException e) {
+            actual = "NumberFormatException";
+        }
+
+        assertEquals("Parsed units differ for input \"" + input + "\"", expected, actual);
+    }
+
+    /**
+     * The original regular expression based implementation of parseTimeDifference, used as a reference.
+     */
+    private int[] parseWithRegex(String input) {
+        Pattern pattern = Pattern.compile(
+                "(?:([0-9]+)\\s*y[a-z]*[,\\s]*)?" +
+                "(?:([0-9]+)\\s*mo[a-z]*[,\\s]*)?" +
+                "(?:([0-9]+)\\s*w[a-z]*[,\\s]*)?" +
+                "(?:([0-9]+)\\s*d[a-z]*[,\\s]*)?" +
+                "(?:([0-9]+)\\s*h[a-z]*[,\\s]*)?" +
+                "(?:([0-9]+)\\s*m[a-z]*[,\\s]*)?" +
+                "(?:([0-9]+)\\s*(?:s[a-z]*)?)?", Pattern.CASE_INSENSITIVE);
+
+        int[] units = new int[] { 0, 0, 0, 0, 0, 0, 0 };
+        Matcher matcher = pattern.matcher(input);
+
+        while (matcher.find()) {
+            if (matcher.group() == null || matcher.group().isEmpty()) {
+                continue;
+            }
+
+            for (int i = 0; i < units.length; i++) {
+                String data = matcher.group(i + 1);
+                if (data != null && !data.isEmpty()) {
+                    units[i] = Integer.parseInt(data);
+                }
+            }
+
+            return units;
+        }
+
+        return null;
+    }
+
+    /**
+     * The original iterative implementation of buildTimeDifference, used as a reference.
+     */
+    private String buildWithIterativeCount(Calendar first, Calendar second) {
+        int[] constants = new int[] { Calendar.YEAR, Calendar.MONTH, Calendar.WEEK_OF_YEAR, Calendar.DAY_OF_YEAR, Calendar.HOUR_OF_DAY, Calendar.MINUTE, Calendar.SECOND };
+        String[] names = new String[] { "year", "month", "week", "day", "hour", "minute", "second" };
+        Calendar firstCopy = new GregorianCalendar();
+        firstCopy.setTimeInMillis(first.getTimeInMillis());
+        StringBuilder s = new StringBuilder();
+
+        for (int i = 0; i < constants.length; i++) {
+            int difference = 0;
+            Calendar temp = new GregorianCalendar();
+            temp.setTimeInMillis(firstCopy.getTimeInMillis());
+            while (!temp.after(second)) {
+                temp.add(constants[i], 1);
+                difference += 1;
+            }
+            difference -= 1;
+
+            if (difference > 0) {
+                s.append(difference).append(" ").append(names[i]).append((difference > 1) ? "s " : " ");
+                firstCopy.add(constants[i], difference);
+            }
+        }
+
+        return s.length() == 0 ? "now" : s.toString().trim();
+    }
 }
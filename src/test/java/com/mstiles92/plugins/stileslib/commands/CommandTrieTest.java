@@ -0,0 +1,134 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.commands;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class CommandTrieTest {
+    private Map<String, String> createCommands() {
+        // keys are lower case, as CommandRegistry stores them
+        Map<String, String> commands = new HashMap<>();
+        commands.put("shop", "shop");
+        commands.put("store", "shop");
+        commands.put("shop.buy", "buy");
+        commands.put("shop.purchase", "buy");
+        commands.put("shop.buy.all", "buyall");
+        commands.put("admin.reload", "reload");
+        return commands;
+    }
+
+    private CommandTrie<String> createTrie() {
+        return new CommandTrie<>(createCommands());
+    }
+
+    /**
+     * The lookup that the trie replaced: try the longest dotted label first, dropping one argument at a time.
+     */
+    private static int legacyDepth(Map<String, String> commands, String label, String[] args) {
+        for (int i = args.length; i >= 0; i--) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(label.toLowerCase());
+            for (int j = 0; j < i; j++) {
+                sb.append(".").append(args[j].toLowerCase());
+            }
+            String commandLabel = sb.toString();
+
+            if (commands.containsKey(commandLabel)) {
+                return commandLabel.split("\\.").length - 1;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void testFindCommand() {
+        CommandTrie<String> trie = createTrie();
+
+        assertEquals("shop", trie.find("shop", new String[0]).getValue());
+        assertEquals(0, trie.find("shop", new String[0]).getDepth());
+        assertNull(trie.find("missing", new String[0]));
+        assertNull(trie.find("admin", new String[0]));
+    }
+
+    @Test
+    public void testFindAlias() {
+        CommandTrie<String> trie = createTrie();
+
+        assertEquals("shop", trie.find("store", new String[] { "list" }).getValue());
+        assertEquals("buy", trie.find("shop", new String[] { "purchase", "diamond" }).getValue());
+    }
+
+    @Test
+    public void testFindSubcommand() {
+        CommandTrie<String> trie = createTrie();
+
+        CommandTrie.Node<String> node = trie.find("shop", new String[] { "buy", "diamond", "64" });
+        assertEquals("buy", node.getValue());
+        assertEquals(1, node.getDepth());
+
+        node = trie.find("shop", new String[] { "buy", "all" });
+        assertEquals("buyall", node.getValue());
+        assertEquals(2, node.getDepth());
+
+        node = trie.find("shop", new String[] { "sell", "buy" });
+        assertEquals("shop", node.getValue());
+        assertEquals(0, node.getDepth());
+
+        assertEquals("reload", trie.find("admin", new String[] { "reload" }).getValue());
+    }
+
+    @Test
+    public void testFindIgnoresCase() {
+        CommandTrie<String> trie = createTrie();
+
+        assertEquals("shop", trie.find("SHOP", new String[0]).getValue());
+        assertEquals("buy", trie.find("Shop", new String[] { "BuY" }).getValue());
+        assertEquals("buyall", trie.find("sHoP", new String[] { "bUy", "ALL" }).getValue());
+    }
+
+    @Test
+    public void testDepthMatchesLegacyLookup() {
+        Map<String, String> commands = createCommands();
+        CommandTrie<String> trie = new CommandTrie<>(commands);
+
+        String[] labels = { "shop", "Store", "admin", "ADMIN", "missing" };
+        String[] words = { "buy", "BUY", "all", "purchase", "reload", "sell", "x" };
+
+        for (String label : labels) {
+            for (int length = 0; length <= 3; length++) {
+                int combinations = (int) Math.pow(words.length, length);
+                for (int n = 0; n < combinations; n++) {
+                    String[] args = new String[length];
+                    for (int i = 0, rest = n; i < length; i++, rest /= words.length) {
+                        args[i] = words[rest % words.length];
+                    }
+
+                    CommandTrie.Node<String> node = trie.find(label, args);
+                    assertEquals(label + " " + Arrays.toString(args), legacyDepth(commands, label, args), node == null ? -1 : node.getDepth());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import org.bukkit.configuration.Configuration;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BinaryConfigStorageTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        MemoryConfiguration config = new MemoryConfiguration();
+        config.set("string", "h\u00e9llo w\u00f6rld");
+        config.set("int", -42);
+        config.set("long", Long.MAX_VALUE);
+        config.set("double", 1.25);
+        config.set("float", 0.5F);
+        config.set("boolean", true);
+        config.set("list", Arrays.asList("a", "b", "c"));
+        ConfigurationSection nested = config.createSection("nested");
+        nested.set("value", 7);
+        nested.createSection("empty");
+
+        Configuration decoded = BinaryConfigStorage.decode(ByteBuffer.wrap(BinaryConfigStorage.encode(config)));
+
+        assertEquals(config.getKeys(false), decoded.getKeys(false));
+        assertEquals("h\u00e9llo w\u00f6rld", decoded.get("string"));
+        assertEquals(-42, decoded.get("int"));
+        assertEquals(Long.MAX_VALUE, decoded.get("long"));
+        assertEquals(1.25, decoded.get("double"));
+        assertEquals(0.5F, decoded.get("float"));
+        assertEquals(true, decoded.get("boolean"));
+        assertEquals(Arrays.asList("a", "b", "c"), decoded.get("list"));
+        assertEquals(7, decoded.get("nested.value"));
+        assertTrue(decoded.isConfigurationSection("nested.empty"));
+    }
+
+    @Test
+    public void testBigNumbersKeepPrecision() throws Exception {
+        BigInteger big = BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.valueOf(1000)).add(BigInteger.ONE);
+        BigInteger nearLong = BigInteger.valueOf(Long.MAX_VALUE - 1);
+        BigDecimal decimal = new BigDecimal("0.1000000000000000000000001");
+        MemoryConfiguration config = new MemoryConfiguration();
+        config.set("big", big);
+        config.set("nearLong", nearLong);
+        config.set("decimal", decimal);
+
+        Configuration decoded = BinaryConfigStorage.decode(ByteBuffer.wrap(BinaryConfigStorage.encode(config)));
+
+        assertEquals(big, decoded.get("big"));
+        assertEquals(nearLong, decoded.get("nearLong"));
+        assertEquals(decimal, decoded.get("decimal"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherNumbers() throws Exception {
+        MemoryConfiguration config = new MemoryConfiguration();
+        config.set("counter", new AtomicLong(Long.MAX_VALUE));
+
+        BinaryConfigStorage.encode(config);
+    }
+
+    @Test
+    public void testEncodingIsStable() throws Exception {
+        MemoryConfiguration config = new MemoryConfiguration();
+        config.set("a", 1);
+        config.createSection("b").set("c", "d");
+
+        byte[] encoded = BinaryConfigStorage.encode(config);
+        assertArrayEquals(encoded, BinaryConfigStorage.encode(BinaryConfigStorage.decode(ByteBuffer.wrap(encoded))));
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void testRejectsOtherFormats() throws Exception {
+        BinaryConfigStorage.decode(ByteBuffer.wrap("a: 1\n".getBytes("UTF-8")));
+    }
+
+    @Test(expected = InvalidConfigurationException.class)
+    public void testRejectsTruncatedData() throws Exception {
+        MemoryConfiguration config = new MemoryConfiguration();
+        config.set("key", "value");
+
+        byte[] encoded = BinaryConfigStorage.encode(config);
+        BinaryConfigStorage.decode(ByteBuffer.wrap(Arrays.copyOf(encoded, encoded.length - 2)));
+    }
+}
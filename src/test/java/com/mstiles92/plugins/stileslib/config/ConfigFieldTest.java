@@ -0,0 +1,80 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.math.BigInteger;
+
+public class ConfigFieldTest {
+    public static class Model extends ConfigObject {
+        public int count = 0;
+        public byte small = 0;
+        public float ratio = 0;
+        public char letter = 'a';
+    }
+
+    private static ConfigField field(String name) throws Exception {
+        return new ConfigField(Model.class.getField(name));
+    }
+
+    @Test
+    public void testLosslessConversions() throws Exception {
+        Model model = new Model();
+
+        field("count").set(model, 7L);
+        assertEquals(7, model.count);
+        field("count").set(model, 2.0);
+        assertEquals(2, model.count);
+        field("small").set(model, -128);
+        assertEquals(-128, model.small);
+        field("ratio").set(model, 0.25);
+        assertEquals(0.25F, model.ratio, 0);
+        field("letter").set(model, "z");
+        assertEquals('z', model.letter);
+        assertEquals(Long.MAX_VALUE, ConfigField.toLong(BigInteger.valueOf(Long.MAX_VALUE)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsFraction() throws Exception {
+        field("count").set(new Model(), 2.7);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsOutOfRange() throws Exception {
+        field("small").set(new Model(), 300);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsLongOutOfIntRange() throws Exception {
+        field("count").set(new Model(), 1L << 32);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsDoubleOutOfLongRange() {
+        ConfigField.toLong(Math.pow(2, 63));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNull() throws Exception {
+        field("count").set(new Model(), null);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ConfigModelTest {
+    public static class LazyModel extends ConfigModel {
+        public Map<String, Integer> scores = new LinkedHashMap<>();
+
+        public LazyModel() {
+            CONFIG_LAZY = true;
+        }
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LazyModel load() throws Exception {
+        File file = folder.newFile("lazy.yml");
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.println("scores:");
+            for (String key : new String[] { "zeta", "alpha", "mid", "beta", "omega", "gamma", "kappa", "delta" }) {
+                out.println("  " + key + ": " + key.length());
+            }
+        }
+
+        LazyModel model = new LazyModel();
+        model.load(file);
+        return model;
+    }
+
+    @Test
+    public void testLoadedModelIsClean() throws Exception {
+        assertFalse(load().isDirty());
+    }
+
+    @Test
+    public void testReadingLazyFieldsLeavesModelClean() throws Exception {
+        LazyModel model = load();
+
+        assertTrue(model.scores instanceof LazyValues.Lazy);
+        assertEquals(Integer.valueOf(5), model.scores.get("alpha"));
+        assertFalse(model.isDirty());
+    }
+
+    @Test
+    public void testChangingLazyFieldMakesModelDirty() throws Exception {
+        LazyModel model = load();
+
+        model.scores.put("alpha", 6);
+        assertTrue(model.isDirty());
+    }
+}
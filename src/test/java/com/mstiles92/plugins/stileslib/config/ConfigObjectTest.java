@@ -0,0 +1,160 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.util.Vector;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ConfigObjectTest {
+    public enum Color { RED, GREEN }
+
+    public static class Nested extends ConfigObject {
+        public String label = "nested";
+        public List<Color> colors = new ArrayList<>(Arrays.asList(Color.RED, Color.GREEN));
+    }
+
+    public static class Model extends ConfigObject {
+        public int count = 4;
+        public double ratio = 2.5;
+        public String name = "model";
+        public Color color = Color.GREEN;
+        public Vector offset = new Vector(1, 2, 3);
+        public Map<String, Integer> scores = new LinkedHashMap<>();
+        public Map<String, List<Nested>> groups = new LinkedHashMap<>();
+        public List<List<Color>> palettes = new ArrayList<>();
+        public transient int ignored = 9;
+
+        public Model() {
+            scores.put("a", 1);
+            scores.put("b", 2);
+            groups.put("first", new ArrayList<>(Arrays.asList(new Nested(), new Nested())));
+            palettes.add(new ArrayList<>(Arrays.asList(Color.GREEN)));
+        }
+    }
+
+    /**
+     * The same fields as Model, with a hook overridden without changing its behavior, so it must produce the same
+     * output as a Model. Fields are only read from the class itself, so they have to be declared again.
+     */
+    public static class HookedModel extends ConfigObject {
+        public int count = 4;
+        public double ratio = 2.5;
+        public String name = "model";
+        public Color color = Color.GREEN;
+        public Vector offset = new Vector(1, 2, 3);
+        public Map<String, Integer> scores = new LinkedHashMap<>();
+        public Map<String, List<Nested>> groups = new LinkedHashMap<>();
+        public List<List<Color>> palettes = new ArrayList<>();
+        public transient int ignored = 9;
+        public transient int mapsLoaded = 0;
+
+        public HookedModel() {
+            scores.put("a", 1);
+            scores.put("b", 2);
+            groups.put("first", new ArrayList<>(Arrays.asList(new Nested(), new Nested())));
+            palettes.add(new ArrayList<>(Arrays.asList(Color.GREEN)));
+        }
+
+        @SuppressWarnings("rawtypes")
+        @Override
+        protected Map getMap(Field field, ConfigurationSection cs, String path, int depth) throws Exception {
+            mapsLoaded++;
+            return super.getMap(field, cs, path, depth);
+        }
+    }
+
+    /**
+     * A model overriding a hook to change how its fields are stored.
+     */
+    public static class UpperCaseModel extends ConfigObject {
+        public String name = "model";
+        public Color color = Color.GREEN;
+
+        @Override
+        protected Object saveObject(Object obj, Field field, ConfigurationSection cs, String path, int depth) throws Exception {
+            Object value = super.saveObject(obj, field, cs, path, depth);
+            return value instanceof String ? ((String) value).toUpperCase() : value;
+        }
+    }
+
+    private static Map<String, Object> save(ConfigObject object) throws Exception {
+        MemoryConfiguration config = new MemoryConfiguration();
+        object.onSave(config);
+        return config.getValues(true);
+    }
+
+    @Test
+    public void testDetectsOverriddenHooks() {
+        assertFalse(ConfigObject.overridesHooks(Model.class));
+        assertTrue(ConfigObject.overridesHooks(HookedModel.class));
+        assertTrue(ConfigObject.overridesHooks(UpperCaseModel.class));
+    }
+
+    @Test
+    public void testHooksProduceSameOutput() throws Exception {
+        Map<String, Object> expected = save(new Model());
+        Map<String, Object> actual = save(new HookedModel());
+
+        assertEquals(expected.keySet(), actual.keySet());
+        for (String key : expected.keySet()) {
+            if (!(expected.get(key) instanceof ConfigurationSection)) {
+                assertEquals(key, expected.get(key), actual.get(key));
+            }
+        }
+    }
+
+    @Test
+    public void testHooksAreCalledOnLoad() throws Exception {
+        MemoryConfiguration config = new MemoryConfiguration();
+        Model saved = new Model();
+        saved.count = 7;
+        saved.scores.put("c", 3);
+        saved.onSave(config);
+
+        HookedModel loaded = new HookedModel();
+        loaded.onLoad(config);
+
+        assertTrue(loaded.mapsLoaded > 0);
+        assertEquals(7, loaded.count);
+        assertEquals(saved.scores, loaded.scores);
+        assertEquals(2, loaded.groups.get("first").size());
+        assertEquals(Arrays.asList(Color.RED, Color.GREEN), loaded.groups.get("first").get(1).colors);
+        assertEquals(Arrays.asList(Arrays.asList(Color.GREEN)), loaded.palettes);
+        assertEquals(saved.offset.getY(), loaded.offset.getY(), 0);
+    }
+
+    @Test
+    public void testHooksAreCalledOnSave() throws Exception {
+        Map<String, Object> values = save(new UpperCaseModel());
+
+        assertEquals("MODEL", values.get("name"));
+        assertEquals("GREEN", values.get("color"));
+    }
+}
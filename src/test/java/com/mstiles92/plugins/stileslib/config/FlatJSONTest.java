@@ -0,0 +1,85 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.config;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class FlatJSONTest {
+
+    @Test
+    public void testParse() {
+        Map<String, String> expected = new HashMap<>();
+        expected.put("world", "world_nether");
+        expected.put("x", "-12.5");
+        assertEquals(expected, FlatJSON.parse("{\"world\":\"world_nether\",\"x\":\"-12.5\"}"));
+        assertEquals(new HashMap<String, String>(), FlatJSON.parse("{}"));
+
+        expected.clear();
+        expected.put("a", "q\"uo/te\\\n\u00e9");
+        assertEquals(expected, FlatJSON.parse("{\"a\":\"q\\\"uo\\/te\\\\\\n\\u00e9\"}"));
+    }
+
+    @Test
+    public void testParseRejectsOtherForms() {
+        assertNull(FlatJSON.parse(""));
+        assertNull(FlatJSON.parse("not json"));
+        assertNull(FlatJSON.parse("{\"x\": \"1\"}"));
+        assertNull(FlatJSON.parse("{\"x\":1}"));
+        assertNull(FlatJSON.parse("{\"x\":\"1\"}trailing"));
+        assertNull(FlatJSON.parse("{\"x\":\"1\""));
+        assertNull(FlatJSON.parse("{\"x\":\"\\u12\"}"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMatchesJSONParser() throws Exception {
+        Random random = new Random(11);
+        for (int i = 0; i < 2000; i++) {
+            JSONObject object = new JSONObject();
+            int entries = random.nextInt(6);
+            for (int j = 0; j < entries; j++) {
+                object.put(randomString(random), randomString(random));
+            }
+
+            String json = object.toJSONString();
+            assertEquals(json, new JSONParser().parse(json), FlatJSON.parse(json));
+
+            String written = FlatJSON.appendString(new StringBuilder(), randomString(random)).toString();
+            assertEquals(written, new JSONParser().parse(written), FlatJSON.parse("{\"k\":" + written + "}").get("k"));
+        }
+    }
+
+    private static String randomString(Random random) {
+        String alphabet = "abcXYZ019_-./\"\\\n\t\u0001\u00e9\u4e16 ";
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * This document is a part of the source code and related artifacts for StilesLib, an open source library that
+ * provides a set of commonly-used functions for Bukkit plugins.
+ *
+ * http://github.com/mstiles92/StilesLib
+ *
+ * Copyright (c) 2014 Matthew Stiles (mstiles92)
+ *
+ * Licensed under the Common Development and Distribution License Version 1.0
+ * You may not use this file except in compliance with this License.
+ *
+ * You may obtain a copy of the CDDL-1.0 License at http://opensource.org/licenses/CDDL-1.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the license.
+ */
+
+package com.mstiles92.plugins.stileslib.menu.menus;
+
+import com.mstiles92.plugins.stileslib.menu.events.MenuClickEvent;
+import com.mstiles92.plugins.stileslib.menu.items.MenuItem;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+public class ListMenuTest {
+    private static final int PAGE_SIZE = 36;
+
+    private static class ClosingItem extends MenuItem {
+        private final Set<Player> closedBy = new HashSet<>();
+
+        private ClosingItem() {
+            super(new ItemStack(Material.PAPER), "item");
+        }
+
+        @Override
+        public void handleClose(Player player) {
+            closedBy.add(player);
+        }
+
+        @Override
+        public void onClick(MenuClickEvent event) {
+        }
+    }
+
+    /**
+     * Create an implementation of the provided interface that only answers getUniqueId, so that Menus can be tested
+     * without a running server.
+     */
+    private static <T> T stub(Class<T> type) {
+        final UUID uuid = UUID.randomUUID();
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "getUniqueId":
+                        return uuid;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return uuid.hashCode();
+                    case "toString":
+                        return uuid.toString();
+                    default:
+                        return method.getReturnType() == boolean.class ? false : null;
+                }
+            }
+        }));
+    }
+
+    private static List<ClosingItem> createItems(int count) {
+        List<ClosingItem> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(new ClosingItem());
+        }
+        return items;
+    }
+
+    @Test
+    public void testSessionEndsOnClose() {
+        ListMenu menu = new ListMenu(stub(Plugin.class), "list", createItems(PAGE_SIZE + 4));
+        Player player = stub(Player.class);
+
+        menu.getSession(player).setPage(2);
+        menu.handleClose(player, null);
+
+        assertTrue(menu.getSessions().isEmpty());
+    }
+
+    @Test
+    public void testCloseReachesItemsOnViewedPage() {
+        List<ClosingItem> items = createItems(PAGE_SIZE + 4);
+        ListMenu menu = new ListMenu(stub(Plugin.class), "list", items);
+        Player player = stub(Player.class);
+
+        menu.getSession(player).setPage(2);
+        menu.handleClose(player, null);
+
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals("item " + i, i >= PAGE_SIZE, items.get(i).closedBy.contains(player));
+        }
+    }
+
+    @Test
+    public void testCloseDoesNotFetchPages() {
+        final List<ClosingItem> items = createItems(PAGE_SIZE);
+        final int[] fetches = { 0 };
+        ListMenu menu = new ListMenu(stub(Plugin.class), "list", new ListMenuSource() {
+            @Override
+            public int size() {
+                return items.size();
+            }
+
+            @Override
+            public List<? extends MenuItem> getItems(int offset, int count) {
+                fetches[0]++;
+                return items.subList(offset, Math.min(offset + count, items.size()));
+            }
+        });
+        Player player = stub(Player.class);
+
+        menu.getSession(player);
+        menu.handleClose(player, null);
+
+        assertEquals(0, fetches[0]);
+        assertTrue(menu.getSessions().isEmpty());
+    }
+}